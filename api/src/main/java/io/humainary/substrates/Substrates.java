@@ -7,10 +7,14 @@ package io.humainary.substrates;
 import io.humainary.spi.Providers;
 import io.humainary.substrates.spi.SubstratesProvider;
 
+import java.lang.ref.Cleaner;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Member;
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -18,6 +22,7 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static io.humainary.substrates.Substrates.Environment.EMPTY;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.empty;
 import static java.util.Optional.ofNullable;
@@ -41,6 +46,38 @@ public final class Substrates {
       SubstratesProvider.class
     );
 
+  // names of classes and their members are resolved once per class
+  // and then served from the class value without reparsing the path
+
+  private static final ClassValue< Name > CLASSES =
+    new ClassValue<> () {
+      @Override
+      protected Name computeValue (
+        final Class< ? > type
+      ) {
+        return
+          PROVIDER.name (
+            type
+          );
+      }
+    };
+
+  private static final ClassValue< Map< Member, Name > > MEMBERS =
+    new ClassValue<> () {
+      @Override
+      protected Map< Member, Name > computeValue (
+        final Class< ? > type
+      ) {
+        return
+          new ConcurrentHashMap<> ();
+      }
+    };
+
+  // returned by a primary environment in place of a default value
+  // so that an overlay can tell when to fall back without an Optional
+
+  private static final Object NONE = new Object ();
+
   private Substrates () {
   }
 
@@ -80,6 +117,30 @@ public final class Substrates {
   }
 
 
+  /**
+   * Creates an immutable {@link Environment} holding a snapshot of the entries of a {@link Map}.
+   * <p>
+   * Names are matched by identity, as with {@link Environment#override(Name, Object)},
+   * and entries with a {@code null} value are ignored. Later changes to the map are not reflected.
+   *
+   * @param map the name value mappings to be copied
+   * @return An {@link Environment} that sources its property values from a copy of the map
+   * @throws NullPointerException if the map parameter is {@code null}
+   * @see SubstratesProvider#environment(Map)
+   */
+
+  public static Environment environment (
+    final Map< Name, ? > map
+  ) {
+
+    return
+      PROVIDER.environment (
+        map
+      );
+
+  }
+
+
   /**
    * Creates a {@link Environment} that sources property values using a provided {@link Lookup}
    *
@@ -415,6 +476,8 @@ public final class Substrates {
 
   /**
    * Creates a {@link Name} from a {@link Class}.
+   * <p>
+   * The name is resolved once per class and cached thereafter.
    *
    * @param namespace the {@link Class} to be mapped to a {@link Name}
    * @return A {@link Name} where {@code name.toString().equals(cls.getName())}
@@ -427,7 +490,7 @@ public final class Substrates {
   ) {
 
     return
-      PROVIDER.name (
+      CLASSES.get (
         namespace
       );
 
@@ -459,6 +522,8 @@ public final class Substrates {
 
   /**
    * Creates a {@link Name} from a {@link Member}.
+   * <p>
+   * The name is resolved once per member, so that overloads and fields are told apart, and cached thereafter.
    *
    * @param namespace the {@link Member} to be mapped to a {@link Name}
    * @return A {@link Name} mapped to the {@link Member}
@@ -469,9 +534,95 @@ public final class Substrates {
     final Member namespace
   ) {
 
+    final var members =
+      MEMBERS.get (
+        namespace.getDeclaringClass ()
+      );
+
+    final var name =
+      members.get (
+        namespace
+      );
+
+    return
+      name != null
+      ? name
+      : members.computeIfAbsent (
+        namespace,
+        key ->
+          PROVIDER.name (
+            namespace
+          )
+      );
+
+  }
+
+
+  /**
+   * Returns the dense id assigned to an interned {@link Name}.
+   * <p>
+   * Ids are small non-negative integers, stable for as long as the name is interned,
+   * so that they can be used to index arrays in place of hashed lookups.
+   *
+   * @param name the {@link Name} for which the id is to be returned
+   * @return The id of the name, or {@code -1} if the provider does not assign ids to the name
+   * @throws NullPointerException if the {@link Name} typed parameter is {@code null}
+   * @see SubstratesProvider#id(Name)
+   */
+
+  public static int id (
+    final Name name
+  ) {
+
+    return
+      PROVIDER.id (
+        name
+      );
+
+  }
+
+
+  /**
+   * Returns the interned {@link Name} currently assigned to an id.
+   *
+   * @param id the id previously returned by {@link #id(Name)}
+   * @return The {@link Name} assigned the id
+   * @throws IllegalArgumentException if no name is currently assigned to the id
+   * @see SubstratesProvider#name(int)
+   */
+
+  public static Name name (
+    final int id
+  ) {
+
     return
       PROVIDER.name (
-        namespace
+        id
+      );
+
+  }
+
+
+  /**
+   * Returns a lazily evaluated {@link Stream} of the interned names enclosed by a prefix.
+   * <p>
+   * The stream walks the names held by the provider beneath the prefix, excluding the prefix itself,
+   * in depth-first order with each name followed by its own descendants. It is weakly consistent:
+   * names interned while the stream is consumed may or may not be included.
+   *
+   * @param prefix the {@link Name} whose descendants are to be returned
+   * @return A {@code Stream} of each interned {@link Name} within the prefix
+   * @throws NullPointerException if the {@link Name} typed parameter is {@code null}
+   * @see SubstratesProvider#descendants(Name)
+   */
+
+  public static Stream< Name > descendants (
+    final Name prefix
+  ) {
+
+    return
+      PROVIDER.descendants (
+        prefix
       );
 
   }
@@ -938,10 +1089,46 @@ public final class Substrates {
       final BiFunction< ? super R, ? super T, R > accumulator
     ) {
 
+      // captures the chain once so the fold can run
+      // from the root without recursing per extent
+
+      final var extents =
+        new Object[depth ()];
+
+      var current =
+        extent ();
+
+      for ( var i = extents.length - 1; i >= 0; i-- ) {
+
+        extents[i] =
+          current;
+
+        current =
+          current
+            .enclosure ()
+            .orElse ( null );
+
+      }
+
+      //noinspection unchecked
+      R result =
+        initial.apply (
+          (T) extents[0]
+        );
+
+      for ( var i = 1; i < extents.length; i++ ) {
+
+        //noinspection unchecked
+        result =
+          accumulator.apply (
+            result,
+            (T) extents[i]
+          );
+
+      }
+
       return
-        enclosure ().isPresent ()
-        ? accumulator.apply ( foldTo ( initial, accumulator ), extent () )
-        : initial.apply ( extent () );
+        result;
 
     }
 
@@ -1037,34 +1224,65 @@ public final class Substrates {
 
     default int depth () {
 
+      var depth = 1;
+
+      var current =
+        extent ()
+          .enclosure ()
+          .orElse ( null );
+
+      while ( current != null ) {
+
+        depth++;
+
+        current =
+          current
+            .enclosure ()
+            .orElse ( null );
+
+      }
+
       return
-        foldFrom (
-          initial -> 1,
-          ( depth, ignore ) -> depth + 1
-        );
+        depth;
 
     }
 
 
     /**
-     * Creates a {@link Spliterator} using the iterator returned from {@link #iterator()}.
+     * Creates a {@link Spliterator} over an array of the extents returned from {@link #iterator()}.
+     * <p>
+     * The enclosures are collected once, in a single walk, so that the spliterator is sized
+     * and can be split evenly for parallel traversal.
      *
-     * @return a {@code Spliterator} using the iterator returned from {@link #iterator()}.
+     * @return a {@code Spliterator} over the extents in the order returned from {@link #iterator()}.
      * @see #iterator()
      */
 
     @Override
     default Spliterator< T > spliterator () {
 
+      final var extents =
+        new Object[depth ()];
+
+      var current =
+        extent ();
+
+      for ( var i = 0; i < extents.length; i++ ) {
+
+        extents[i] =
+          current;
+
+        current =
+          current
+            .enclosure ()
+            .orElse ( null );
+
+      }
+
       return
         Spliterators.spliterator (
-          iterator (),
-          foldFrom (
-            self -> 1,
-            ( sum, name ) ->
-              sum + 1
-          ).longValue (),
-          DISTINCT | NONNULL | IMMUTABLE
+          extents,
+          ORDERED | DISTINCT | NONNULL | IMMUTABLE
         );
 
     }
@@ -1156,6 +1374,55 @@ public final class Substrates {
 
     }
 
+
+    /**
+     * Returns the innermost extent that is, or directly or indirectly encloses, both this extent and the extent parameter.
+     *
+     * @param other the extent to be paired with this extent
+     * @return The innermost common extent, or {@code null} if the extents do not share an {@link #extremity()}.
+     */
+
+    default T commonEnclosure (
+      final T other
+    ) {
+
+      var left =
+        extent ();
+
+      var right =
+        other;
+
+      var leftDepth =
+        depth ();
+
+      var rightDepth =
+        other.depth ();
+
+      for ( ; leftDepth > rightDepth; leftDepth-- )
+        left = left.enclosure ().orElse ( null );
+
+      for ( ; rightDepth > leftDepth; rightDepth-- )
+        right = right.enclosure ().orElse ( null );
+
+      while ( left != right ) {
+
+        left =
+          left
+            .enclosure ()
+            .orElse ( null );
+
+        right =
+          right
+            .enclosure ()
+            .orElse ( null );
+
+      }
+
+      return
+        left;
+
+    }
+
   }
 
 
@@ -1250,6 +1517,9 @@ public final class Substrates {
 
     /**
      * Returns a new name that has this name as a direct or indirect prefix.
+     * <p>
+     * The segments of the path are collected once, moving from the path to its root,
+     * and are then appended to this name iteratively.
      *
      * @param path the name to be appended to this name
      * @return A new name with the path appended.
@@ -1259,17 +1529,38 @@ public final class Substrates {
       final Name path
     ) {
 
+      final var values =
+        new String[path.depth ()];
+
+      var current =
+        path;
+
+      for ( var i = values.length - 1; i >= 0; i-- ) {
+
+        values[i] =
+          current.value ();
+
+        current =
+          current
+            .enclosure ()
+            .orElse ( null );
+
+      }
+
+      var name =
+        this;
+
+      for ( final var value : values ) {
+
+        name =
+          name.name (
+            value
+          );
+
+      }
+
       return
-        path.foldTo (
-          initial ->
-            name (
-              initial.value ()
-            ),
-          ( name, part ) ->
-            name.name (
-              part.value ()
-            )
-        );
+        name;
 
     }
 
@@ -1390,7 +1681,7 @@ public final class Substrates {
 
       return
         foldTo (
-          first -> new StringBuilder ( 25 ).append ( first ),
+          first -> new StringBuilder ( 25 ).append ( first.value () ),
           ( result, name ) -> result.append ( '.' ).append ( name.value () )
         );
 
@@ -1398,101 +1689,387 @@ public final class Substrates {
 
 
     /**
-     * Compares this {@code Name} instance with another.
+     * Returns a read-only {@link ByteBuffer} holding the UTF-8 encoding of {@link #toPath()}.
+     * <p>
+     * An implementation may cache the encoded path, in which case the buffer returned is a view of it.
+     *
+     * @return A read-only buffer positioned at the start of the encoded path.
+     * @see #writeTo(ByteBuffer)
      */
 
-    @Override
-    default int compareTo (
-      final Name name
-    ) {
+    default ByteBuffer toPathBuffer () {
 
       return
-        this == name
-        ? 0
-        : toString ().compareTo ( name.toString () );
+        ByteBuffer.wrap (
+          toPath ()
+            .toString ()
+            .getBytes ( UTF_8 )
+        ).asReadOnlyBuffer ();
 
     }
 
 
     /**
-     * Returns the string representation returned from {@link #toPath()}.
+     * Writes the UTF-8 encoding of {@link #toPath()} into a buffer at its current position.
+     * <p>
+     * An implementation may write a cached encoding of the path, or encode it incrementally from the
+     * cached encoding of an enclosing name.
      *
-     * @return A non-{@code null} {@link String} representation.
-     * @see #toPath()
+     * @param buffer the buffer to be written to
+     * @throws java.nio.BufferOverflowException if there is insufficient space remaining in the buffer,
+     *                                          in which case it is left unchanged
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only
+     * @see #toPathBuffer()
+     */
+
+    default void writeTo (
+      final ByteBuffer buffer
+    ) {
+
+      buffer.put (
+        toPath ()
+          .toString ()
+          .getBytes ( UTF_8 )
+      );
+
+    }
+
+
+    /**
+     * Compares this {@code Name} instance with another, segment by segment starting from the root.
+     * <p>
+     * An enclosing name is ordered before the names it encloses, and names that
+     * differ are ordered by the {@link #value()} of the outermost differing segments.
+     * The comparison walks the {@link Extent} enclosure chain and does not build path strings.
      */
 
     @Override
-    String toString ();
+    default int compareTo (
+      final Name name
+    ) {
 
+      if ( this == name )
+        return 0;
 
-  }
+      var leftDepth =
+        depth ();
 
+      var rightDepth =
+        name.depth ();
 
-  /**
-   * An abstraction for interfacing with existing configuration libraries and stores.
-   * <p>
-   * Note: An SPI implementation of this interface is free to override the
-   * default methods implementation included here.
-   */
+      final var order =
+        Integer.compare (
+          leftDepth,
+          rightDepth
+        );
 
-  public interface Environment
-    extends Lookup< Object >,
-            Substrate {
+      var left =
+        this;
 
-    Environment EMPTY = ( name, defVal ) -> defVal;
+      var right =
+        name;
 
-    /**
-     * Returns a typed value mapped to a name.
-     *
-     * @param name the property name to be sourced
-     * @param type the class type of the value returned
-     * @param <T>  the class of the return type and default value
-     * @return An {@link Optional} holding the value matched or {@link Optional#empty()}.
-     */
+      for ( ; leftDepth > rightDepth; leftDepth-- )
+        left = left.enclosure ().orElse ( null );
 
-    default < T > Optional< T > getObject (
-      final Name name,
-      final Class< ? extends T > type
-    ) {
+      for ( ; rightDepth > leftDepth; rightDepth-- )
+        right = right.enclosure ().orElse ( null );
 
-      //noinspection unchecked
-      return
-        get ( name )
-          .flatMap (
-            object ->
-              type.isInstance ( object )
-              ? Optional.of ( (T) object )
-              : empty ()
-          );
+      var result = 0;
 
-    }
+      // walks up until a shared enclosure (or past the roots)
+      // with the outermost differing segment deciding the order
 
+      while ( left != right ) {
 
-    /**
-     * Returns a typed value mapped to a name.
-     *
-     * @param name     the property name to be sourced
-     * @param type     the class type of the value returned
-     * @param <T>      the class of the return type and default value
-     * @param defValue the default value to return if not matched
-     * @return The value matched, or the provided default value.
-     */
+        final var value =
+          left.value ();
 
-    default < T > T getObject (
-      final Name name,
-      final Class< T > type,
-      final T defValue
-    ) {
+        final var other =
+          right.value ();
+
+        if ( value != other ) {
+
+          final var compare =
+            value.compareTo (
+              other
+            );
+
+          if ( compare != 0 )
+            result = compare;
+
+        }
+
+        left =
+          left.enclosure ().orElse ( null );
+
+        right =
+          right.enclosure ().orElse ( null );
+
+      }
 
       return
-        getObject ( name, type )
-          .orElse ( defValue );
+        result != 0
+        ? result
+        : order;
 
     }
 
 
     /**
-     * Returns a typed value mapped to a name.
+     * Returns a 64-bit hash of this name that is stable across processes and runtimes.
+     * <p>
+     * Unlike {@link #hashCode()}, the value depends only on the segments of the name, so it can be used
+     * for partitioning, bloom filters and sketches shared between processes. It is defined as
+     * {@link #stableHash(long, CharSequence)} applied to each segment starting from the root,
+     * with {@code 0} as the hash enclosing the root.
+     *
+     * @return The stable 64-bit hash of this name.
+     * @see #stableHash(long, CharSequence)
+     */
+
+    default long stableHash () {
+
+      final var values =
+        new String[depth ()];
+
+      var current =
+        this;
+
+      for ( var i = values.length - 1; i >= 0; i-- ) {
+
+        values[i] =
+          current.value ();
+
+        current =
+          current
+            .enclosure ()
+            .orElse ( null );
+
+      }
+
+      var hash = 0L;
+
+      for ( final var value : values ) {
+
+        hash =
+          stableHash (
+            hash,
+            value
+          );
+
+      }
+
+      return
+        hash;
+
+    }
+
+
+    /**
+     * Combines the stable hash of an enclosing name with a segment value.
+     * <p>
+     * The segment is hashed with 64-bit FNV-1a over its UTF-8 encoding, with unpaired surrogates
+     * encoded as {@code '?'}. The result is the MurmurHash3 64-bit finalizer ({@code fmix64}) applied to
+     * {@code enclosure * 0x9E3779B97F4A7C15 + segment}, using wrapping arithmetic.
+     * This algorithm is fixed and will not change between releases.
+     *
+     * @param enclosure the stable hash of the enclosing name, or {@code 0} for a root name
+     * @param value     the segment value
+     * @return The stable hash of the name with the segment appended to the enclosure.
+     * @see #stableHash()
+     */
+
+    static long stableHash (
+      final long enclosure,
+      final CharSequence value
+    ) {
+
+      var segment =
+        0xCBF29CE484222325L;
+
+      final var length =
+        value.length ();
+
+      for ( var i = 0; i < length; i++ ) {
+
+        final int c =
+          value.charAt ( i );
+
+        if ( c < 0x80 ) {
+
+          segment = ( segment ^ c ) * 0x100000001B3L;
+
+        } else if ( c < 0x800 ) {
+
+          segment = ( segment ^ ( 0xC0 | c >> 6 ) ) * 0x100000001B3L;
+          segment = ( segment ^ ( 0x80 | c & 0x3F ) ) * 0x100000001B3L;
+
+        } else if (
+          Character.isHighSurrogate ( (char) c )
+            && i + 1 < length
+            && Character.isLowSurrogate ( value.charAt ( i + 1 ) )
+        ) {
+
+          final var cp =
+            Character.toCodePoint (
+              (char) c,
+              value.charAt ( ++i )
+            );
+
+          segment = ( segment ^ ( 0xF0 | cp >> 18 ) ) * 0x100000001B3L;
+          segment = ( segment ^ ( 0x80 | cp >> 12 & 0x3F ) ) * 0x100000001B3L;
+          segment = ( segment ^ ( 0x80 | cp >> 6 & 0x3F ) ) * 0x100000001B3L;
+          segment = ( segment ^ ( 0x80 | cp & 0x3F ) ) * 0x100000001B3L;
+
+        } else if ( Character.isSurrogate ( (char) c ) ) {
+
+          segment = ( segment ^ '?' ) * 0x100000001B3L;
+
+        } else {
+
+          segment = ( segment ^ ( 0xE0 | c >> 12 ) ) * 0x100000001B3L;
+          segment = ( segment ^ ( 0x80 | c >> 6 & 0x3F ) ) * 0x100000001B3L;
+          segment = ( segment ^ ( 0x80 | c & 0x3F ) ) * 0x100000001B3L;
+
+        }
+
+      }
+
+      return
+        stableHash (
+          enclosure,
+          segment
+        );
+
+    }
+
+
+    /**
+     * Combines the stable hash of an enclosing name with the 64-bit FNV-1a hash of a segment's UTF-8 bytes.
+     * <p>
+     * This is the final step of {@link #stableHash(long, CharSequence)}, for callers that hash segments
+     * directly from encoded bytes: {@code fmix64(enclosure * 0x9E3779B97F4A7C15 + segment)}.
+     *
+     * @param enclosure the stable hash of the enclosing name, or {@code 0} for a root name
+     * @param segment   the FNV-1a hash of the segment value
+     * @return The stable hash of the name with the segment appended to the enclosure.
+     * @see #stableHash(long, CharSequence)
+     */
+
+    static long stableHash (
+      final long enclosure,
+      final long segment
+    ) {
+
+      var hash =
+        enclosure * 0x9E3779B97F4A7C15L + segment;
+
+      hash ^= hash >>> 33;
+      hash *= 0xFF51AFD7ED558CCDL;
+      hash ^= hash >>> 33;
+      hash *= 0xC4CEB9FE1A85EC53L;
+      hash ^= hash >>> 33;
+
+      return
+        hash;
+
+    }
+
+
+    /**
+     * Returns the string representation returned from {@link #toPath()}.
+     *
+     * @return A non-{@code null} {@link String} representation.
+     * @see #toPath()
+     */
+
+    @Override
+    String toString ();
+
+
+  }
+
+
+  /**
+   * An abstraction for interfacing with existing configuration libraries and stores.
+   * <p>
+   * Note: An SPI implementation of this interface is free to override the
+   * default methods implementation included here.
+   */
+
+  public interface Environment
+    extends Lookup< Object >,
+            Substrate {
+
+    Environment EMPTY = ( name, defVal ) -> defVal;
+
+    /**
+     * Returns a typed value mapped to a name.
+     *
+     * @param name the property name to be sourced
+     * @param type the class type of the value returned
+     * @param <T>  the class of the return type and default value
+     * @return An {@link Optional} holding the value matched or {@link Optional#empty()}.
+     */
+
+    default < T > Optional< T > getObject (
+      final Name name,
+      final Class< ? extends T > type
+    ) {
+
+      final var value =
+        get (
+          name,
+          null
+        );
+
+      //noinspection unchecked
+      return
+        type.isInstance ( value )
+        ? Optional.of ( (T) value )
+        : empty ();
+
+    }
+
+
+    /**
+     * Returns a typed value mapped to a name.
+     * <p>
+     * The value is fetched once with {@link #get(Name, Object)} and checked against the type,
+     * without wrapping it in an {@link Optional}. Implementations may override this to read
+     * their storage directly.
+     *
+     * @param name     the property name to be sourced
+     * @param type     the class type of the value returned
+     * @param <T>      the class of the return type and default value
+     * @param defValue the default value to return if not matched
+     * @return The value matched, or the provided default value.
+     */
+
+    default < T > T getObject (
+      final Name name,
+      final Class< T > type,
+      final T defValue
+    ) {
+
+      final var value =
+        get (
+          name,
+          null
+        );
+
+      //noinspection unchecked
+      return
+        type.isInstance ( value )
+        ? (T) value
+        : defValue;
+
+    }
+
+
+    /**
+     * Returns a typed value mapped to a name.
      *
      * @param name   the property name to be sourced
      * @param type   the type of the value returned
@@ -1511,38 +2088,76 @@ public final class Substrates {
     ) {
 
       return
-        get ( name )
-          .flatMap (
-            value -> {
+        ofNullable (
+          getObject (
+            name,
+            type,
+            alt,
+            mapper,
+            null
+          )
+        );
+
+    }
 
-              if ( type.isInstance ( value ) ) {
 
-                //noinspection unchecked
-                return
-                  Optional.of (
-                    (T) value
-                  );
+    /**
+     * Returns a typed value mapped to a name.
+     * <p>
+     * The value is fetched once with {@link #get(Name, Object)} and checked against the type and then the
+     * alternative type, without wrapping it in an {@link Optional}. Implementations may override this to
+     * read their storage directly.
+     *
+     * @param name     the property name to be sourced
+     * @param type     the type of the value returned
+     * @param alt      an alternative class type to be used as the base for a mapping
+     * @param mapper   the function used to transform the alternative type to the return type or null
+     * @param defValue the default value to return if not matched, or if the mapper returns {@code null}
+     * @param <T>      the class of the return value type
+     * @param <A>      the class of the alternative value type
+     * @return The value matched, or the provided default value.
+     */
 
-              } else if ( alt.isInstance ( value ) ) {
+    default < T, A > T getObject (
+      final Name name,
+      final Class< ? extends T > type,
+      final Class< ? extends A > alt,
+      final Function< ? super A, ? extends T > mapper,
+      final T defValue
+    ) {
 
-                //noinspection unchecked
-                return
-                  ofNullable (
-                    mapper.apply (
-                      (A) value
-                    )
-                  );
+      final var value =
+        get (
+          name,
+          null
+        );
 
-              } else {
+      if ( type.isInstance ( value ) ) {
 
-                return
-                  empty ();
+        //noinspection unchecked
+        return
+          (T) value;
 
-              }
+      } else if ( alt.isInstance ( value ) ) {
 
-            }
+        //noinspection unchecked
+        final T result =
+          mapper.apply (
+            (A) value
           );
 
+        return
+          result != null
+          ? result
+          : defValue;
+
+      } else {
+
+        return
+          defValue;
+
+      }
+
     }
 
 
@@ -1582,8 +2197,13 @@ public final class Substrates {
     ) {
 
       return
-        getString ( name )
-          .orElse ( defValue );
+        getObject (
+          name,
+          String.class,
+          CharSequence.class,
+          CharSequence::toString,
+          defValue
+        );
 
     }
 
@@ -1622,8 +2242,11 @@ public final class Substrates {
     ) {
 
       return
-        getCharSequence ( name )
-          .orElse ( defValue );
+        getObject (
+          name,
+          CharSequence.class,
+          defValue
+        );
 
     }
 
@@ -1663,9 +2286,18 @@ public final class Substrates {
       final Boolean defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getBoolean ( name )
-          .orElse ( defValue );
+        value instanceof Boolean
+        ? (Boolean) value
+        : value instanceof String
+          ? Boolean.valueOf ( (String) value )
+          : defValue;
 
     }
 
@@ -1683,9 +2315,18 @@ public final class Substrates {
       final boolean defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getBoolean ( name )
-          .orElse ( defValue );
+        value instanceof Boolean
+        ? (Boolean) value
+        : value instanceof String
+          ? Boolean.parseBoolean ( (String) value )
+          : defValue;
 
     }
 
@@ -1725,9 +2366,18 @@ public final class Substrates {
       final long defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getLong ( name )
-          .orElse ( defValue );
+        value instanceof Long
+        ? (Long) value
+        : value instanceof String
+          ? Long.parseLong ( (String) value )
+          : defValue;
 
     }
 
@@ -1745,9 +2395,18 @@ public final class Substrates {
       final Long defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getLong ( name )
-          .orElse ( defValue );
+        value instanceof Long
+        ? (Long) value
+        : value instanceof String
+          ? Long.valueOf ( (String) value )
+          : defValue;
 
     }
 
@@ -1787,9 +2446,18 @@ public final class Substrates {
       final int defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getInteger ( name )
-          .orElse ( defValue );
+        value instanceof Integer
+        ? (Integer) value
+        : value instanceof String
+          ? Integer.parseInt ( (String) value )
+          : defValue;
 
     }
 
@@ -1807,9 +2475,18 @@ public final class Substrates {
       final Integer defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getInteger ( name )
-          .orElse ( defValue );
+        value instanceof Integer
+        ? (Integer) value
+        : value instanceof String
+          ? Integer.valueOf ( (String) value )
+          : defValue;
 
     }
 
@@ -1849,9 +2526,18 @@ public final class Substrates {
       final Double defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getDouble ( name )
-          .orElse ( defValue );
+        value instanceof Double
+        ? (Double) value
+        : value instanceof String
+          ? Double.valueOf ( (String) value )
+          : defValue;
 
     }
 
@@ -1869,9 +2555,18 @@ public final class Substrates {
       final double defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getDouble ( name )
-          .orElse ( defValue );
+        value instanceof Double
+        ? (Double) value
+        : value instanceof String
+          ? Double.parseDouble ( (String) value )
+          : defValue;
 
     }
 
@@ -1911,9 +2606,18 @@ public final class Substrates {
       final Float defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getFloat ( name )
-          .orElse ( defValue );
+        value instanceof Float
+        ? (Float) value
+        : value instanceof String
+          ? Float.parseFloat ( (String) value )
+          : defValue;
 
     }
 
@@ -1931,9 +2635,18 @@ public final class Substrates {
       final float defValue
     ) {
 
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getFloat ( name )
-          .orElse ( defValue );
+        value instanceof Float
+        ? (Float) value
+        : value instanceof String
+          ? Float.parseFloat ( (String) value )
+          : defValue;
 
     }
 
@@ -1983,9 +2696,21 @@ public final class Substrates {
       final T defValue
     ) {
 
+      // not mapped through getObject, as a lambda
+      // capturing the type would allocate per call
+
+      final var value =
+        get (
+          name,
+          null
+        );
+
       return
-        getEnum ( name, type )
-          .orElse ( defValue );
+        type.isInstance ( value )
+        ? type.cast ( value )
+        : value instanceof String
+          ? Enum.valueOf ( type, (String) value )
+          : defValue;
 
     }
 
@@ -2026,8 +2751,13 @@ public final class Substrates {
     ) {
 
       return
-        getName ( name )
-          .orElse ( defValue );
+        getObject (
+          name,
+          Name.class,
+          String.class,
+          Substrates::name,
+          defValue
+        );
 
     }
 
@@ -2046,10 +2776,11 @@ public final class Substrates {
     ) {
 
       return
-        ( lookup, defVal ) ->
-          name == lookup
-          ? value
-          : get ( lookup, defVal );
+        new Binding (
+          this,
+          name,
+          value
+        );
 
     }
 
@@ -2057,6 +2788,10 @@ public final class Substrates {
     /**
      * Returns a {@code Environment} that overrides (or supplies) the value for a particular path within an environment.
      *
+     * <p>
+     * The supplier is called on every lookup of the name; a supplier that caches its value, such as one that
+     * computes it once or refreshes it periodically, can be used when the value is costly to obtain.
+     *
      * @param name     the property name to be sourced
      * @param supplier the supplier used to provide a value on match
      * @return A {@code Environment} that overrides (or supplies) the value for a particular path within an environment.
@@ -2068,10 +2803,11 @@ public final class Substrates {
     ) {
 
       return
-        ( lookup, defVal ) ->
-          name == lookup
-          ? ofNullable ( supplier.get () ).orElse ( defVal )
-          : get ( lookup, defVal );
+        new Supplied (
+          this,
+          name,
+          supplier
+        );
 
     }
 
@@ -2089,51 +2825,60 @@ public final class Substrates {
     ) {
 
       return
-        ( lookup, defVal ) ->
-          primary.get (
-            lookup
-          ).orElseGet (
-            () ->
-              get (
-                lookup,
-                defVal
-              )
-          );
+        new Overlay (
+          this,
+          primary
+        );
+
+    }
+
+
+    /**
+     * Returns a {@code Environment} that flattens a chain of overrides into a single table.
+     * <p>
+     * Overrides of a name with a value, and overrides by an environment that itself consists only of such
+     * overrides, are collected into one identity-keyed table, so that a lookup no longer visits each layer.
+     * Names not in the table are looked up in the first environment of the chain that cannot be flattened,
+     * such as one built from a function or supplier. The result is equivalent to {@code this} environment.
+     *
+     * @return A {@code Environment} equivalent to {@code this}, or {@code this} if there is nothing to flatten.
+     */
+
+    default Environment compact () {
+
+      return
+        Bindings.compact (
+          this
+        );
 
     }
 
 
     /**
      * Returns a {@code Environment} that caches lookup results across calls
+     * <p>
+     * Names without a value are cached as well, so that a missing property is only looked up once.
+     * A name reported by {@link #onChange(Consumer)} of {@code this} environment is removed from the cache.
+     * The cache is unbounded; an SPI implementation may offer a bounded alternative.
      *
      * @return A {@code Environment} that is fronted by a cache containing name value mappings.
      */
 
     default Environment memorize () {
 
-      final Map< Name, Object > map =
-        new ConcurrentHashMap<> ();
-
       return
-        ( lookup, defVal ) ->
-          ofNullable (
-            map.computeIfAbsent (
-              lookup,
-              key ->
-                get (
-                  lookup,
-                  null
-                )
-            )
-          ).orElse (
-            defVal
-          );
+        new Memo (
+          this
+        );
 
     }
 
 
     /**
      * Returns a {@code Environment} that applies a function to the name parameter before being calls onto this {@code Environment}
+     * <p>
+     * Changes are reported under the names of {@code this} environment, as a mapper cannot be inverted,
+     * so a cache of the result is only invalidated for names that the mapper leaves as they are.
      *
      * @param mapper A function that returns an alternative name or the same name passed
      * @return A {@code Environment} that allows a remapping of the name before being looked up in this {@code Environment}
@@ -2144,13 +2889,10 @@ public final class Substrates {
     ) {
 
       return
-        ( name, defVal ) ->
-          get (
-            mapper.apply (
-              name
-            ),
-            defVal
-          );
+        new Remapped (
+          this,
+          mapper
+        );
 
     }
 
@@ -2167,17 +2909,63 @@ public final class Substrates {
     ) {
 
       return
-        ( name, defVal ) ->
-          filter.test ( name ) ?
-          get ( name, defVal ) :
-          null;
+        new Filtered (
+          this,
+          filter
+        );
 
     }
 
-  }
-
 
-  /**
+    /**
+     * Returns the version of the mappings of this environment.
+     * <p>
+     * The version never decreases, and increases before the {@link #onChange(Consumer) listeners} are told
+     * of a change, so a value looked up and then checked against an unchanged version is current. An
+     * environment that never changes, which is the default, always returns {@code 0}. Environments derived
+     * with the {@code override} methods, {@link #remap(Function)}, {@link #filter(Predicate)}, {@link #compact()}
+     * and {@link #memorize()} report the versions of the environments they are built from.
+     *
+     * @return The current version of this environment.
+     */
+
+    default long version () {
+
+      return
+        0L;
+
+    }
+
+
+    /**
+     * Registers a listener to be called with the name of each mapping that may have changed.
+     * <p>
+     * The listener is called after the {@link #version()} has been increased, on the thread making the
+     * change, and may be called for names whose value has not in fact changed. The default, for an
+     * environment that never changes, never calls the listener.
+     *
+     * @param listener the consumer of changed names
+     * @return The subscription used to stop calls to the listener.
+     */
+
+    default Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      requireNonNull (
+        listener
+      );
+
+      return
+        () -> {
+        };
+
+    }
+
+  }
+
+
+  /**
    * An interface for service provider produced object types exposing configuration and runtime state for inspection purposes.
    */
 
@@ -2318,20 +3106,39 @@ public final class Substrates {
               Substrate {
 
 
+    /**
+     * Creates a {@link Spliterator} over the referents contained within the container.
+     * <p>
+     * Implementations should override this with a spliterator backed by their storage
+     * so that streams of the container can be split for parallel traversal.
+     *
+     * @return A {@code Spliterator} over the referents contained within the container.
+     */
+
+    @Override
+    default Spliterator< T > spliterator () {
+
+      return
+        spliteratorUnknownSize (
+          iterator (),
+          DISTINCT | NONNULL
+        );
+
+    }
+
+
     /**
      * Returns a stream of referents contained within the container.
      *
      * @return A stream of referents contained with the container.
+     * @see #spliterator()
      */
 
     default Stream< T > stream () {
 
       return
         StreamSupport.stream (
-          spliteratorUnknownSize (
-            iterator (),
-            DISTINCT | NONNULL
-          ),
+          spliterator (),
           false
         );
 
@@ -2996,4 +3803,764 @@ public final class Substrates {
 
   }
 
+
+  // the override of a single name, kept as a distinct type
+  // so that chains of them can be flattened by compact()
+
+  private static final class Binding
+    implements Environment {
+
+    private final Environment environment;
+    private final Name        name;
+    private final Object      value;
+
+    Binding (
+      final Environment environment,
+      final Name name,
+      final Object value
+    ) {
+
+      this.environment =
+        environment;
+
+      this.name =
+        name;
+
+      this.value =
+        value;
+
+    }
+
+
+    @Override
+    public Object get (
+      final Name lookup,
+      final Object defVal
+    ) {
+
+      return
+        name == lookup
+        ? value
+        : environment.get ( lookup, defVal );
+
+    }
+
+
+    @Override
+    public long version () {
+
+      return
+        environment.version ();
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      return
+        environment.onChange (
+          listener
+        );
+
+    }
+
+  }
+
+
+  private static final class Overlay
+    implements Environment {
+
+    private final Environment environment;
+    private final Environment primary;
+
+    Overlay (
+      final Environment environment,
+      final Environment primary
+    ) {
+
+      this.environment =
+        environment;
+
+      this.primary =
+        primary;
+
+    }
+
+
+    @Override
+    public Object get (
+      final Name lookup,
+      final Object defVal
+    ) {
+
+      final var value =
+        primary.get (
+          lookup,
+          NONE
+        );
+
+      return
+        value != NONE && value != null
+        ? value
+        : environment.get ( lookup, defVal );
+
+    }
+
+
+    // the sum of two versions that never decrease increases with either
+
+    @Override
+    public long version () {
+
+      return
+        primary.version () + environment.version ();
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      final var first =
+        primary.onChange (
+          listener
+        );
+
+      final var second =
+        environment.onChange (
+          listener
+        );
+
+      return
+        () -> {
+          first.cancel ();
+          second.cancel ();
+        };
+
+    }
+
+  }
+
+
+  // the wrappers below look up through the environment they are derived
+  // from, and so report its version and changes as their own
+
+  private static final class Supplied
+    implements Environment {
+
+    private final Environment        environment;
+    private final Name               name;
+    private final Supplier< Object > supplier;
+
+    Supplied (
+      final Environment environment,
+      final Name name,
+      final Supplier< Object > supplier
+    ) {
+
+      this.environment =
+        environment;
+
+      this.name =
+        name;
+
+      this.supplier =
+        supplier;
+
+    }
+
+
+    @Override
+    public Object get (
+      final Name lookup,
+      final Object defVal
+    ) {
+
+      if ( name != lookup )
+        return environment.get ( lookup, defVal );
+
+      final var value =
+        supplier.get ();
+
+      return
+        value != null
+        ? value
+        : defVal;
+
+    }
+
+
+    @Override
+    public long version () {
+
+      return
+        environment.version ();
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      return
+        environment.onChange (
+          listener
+        );
+
+    }
+
+  }
+
+
+  private static final class Remapped
+    implements Environment {
+
+    private final Environment                             environment;
+    private final Function< ? super Name, ? extends Name > mapper;
+
+    Remapped (
+      final Environment environment,
+      final Function< ? super Name, ? extends Name > mapper
+    ) {
+
+      this.environment =
+        environment;
+
+      this.mapper =
+        mapper;
+
+    }
+
+
+    @Override
+    public Object get (
+      final Name lookup,
+      final Object defVal
+    ) {
+
+      return
+        environment.get (
+          mapper.apply (
+            lookup
+          ),
+          defVal
+        );
+
+    }
+
+
+    @Override
+    public long version () {
+
+      return
+        environment.version ();
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      return
+        environment.onChange (
+          listener
+        );
+
+    }
+
+  }
+
+
+  private static final class Filtered
+    implements Environment {
+
+    private final Environment               environment;
+    private final Predicate< ? super Name > filter;
+
+    Filtered (
+      final Environment environment,
+      final Predicate< ? super Name > filter
+    ) {
+
+      this.environment =
+        environment;
+
+      this.filter =
+        filter;
+
+    }
+
+
+    @Override
+    public Object get (
+      final Name lookup,
+      final Object defVal
+    ) {
+
+      return
+        filter.test ( lookup )
+        ? environment.get ( lookup, defVal )
+        : null;
+
+    }
+
+
+    @Override
+    public long version () {
+
+      return
+        environment.version ();
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      return
+        environment.onChange (
+          listener
+        );
+
+    }
+
+  }
+
+
+  // a flattened chain of overrides: an open-addressing table keyed by
+  // identity, as overrides match, falling back to the rest of the chain
+
+  private static final class Bindings
+    implements Environment {
+
+    private final Name[]      names;
+    private final Object[]    values;
+    private final Environment environment;
+
+    private Bindings (
+      final List< Name > names,
+      final List< Object > values,
+      final Environment environment
+    ) {
+
+      var capacity = 2;
+
+      while ( capacity < names.size () << 1 )
+        capacity <<= 1;
+
+      this.names =
+        new Name[capacity];
+
+      this.values =
+        new Object[capacity];
+
+      this.environment =
+        environment;
+
+      final var mask =
+        capacity - 1;
+
+      // the outermost override of a name is collected first and wins
+
+      for ( var i = 0; i < names.size (); i++ ) {
+
+        final var name =
+          names.get ( i );
+
+        var j =
+          index ( name ) & mask;
+
+        while ( this.names[j] != null && this.names[j] != name )
+          j = ( j + 1 ) & mask;
+
+        if ( this.names[j] == null ) {
+
+          this.names[j] =
+            name;
+
+          this.values[j] =
+            values.get ( i );
+
+        }
+
+      }
+
+    }
+
+
+    static Environment compact (
+      final Environment environment
+    ) {
+
+      final var names =
+        new ArrayList< Name > ();
+
+      final var values =
+        new ArrayList< Object > ();
+
+      final var tail =
+        collect (
+          environment,
+          names,
+          values
+        );
+
+      return
+        tail == environment || environment instanceof Bindings && ( (Bindings) environment ).environment == tail
+        ? environment
+        : new Bindings ( names, values, tail );
+
+    }
+
+
+    // collects the overrides along the chain, outermost first, returning
+    // the first environment that cannot be flattened (or EMPTY at its end)
+
+    private static Environment collect (
+      final Environment environment,
+      final List< Name > names,
+      final List< Object > values
+    ) {
+
+      var current =
+        environment;
+
+      for ( ; ; ) {
+
+        if ( current instanceof Binding ) {
+
+          final var binding =
+            (Binding) current;
+
+          names.add (
+            binding.name
+          );
+
+          values.add (
+            binding.value
+          );
+
+          current =
+            binding.environment;
+
+        } else if ( current instanceof Bindings ) {
+
+          final var bindings =
+            (Bindings) current;
+
+          for ( var i = 0; i < bindings.names.length; i++ ) {
+
+            if ( bindings.names[i] != null ) {
+
+              names.add (
+                bindings.names[i]
+              );
+
+              values.add (
+                bindings.values[i]
+              );
+
+            }
+
+          }
+
+          current =
+            bindings.environment;
+
+        } else if ( current instanceof Overlay ) {
+
+          final var overlay =
+            (Overlay) current;
+
+          final var primaryNames =
+            new ArrayList< Name > ();
+
+          final var primaryValues =
+            new ArrayList< Object > ();
+
+          if ( collect ( overlay.primary, primaryNames, primaryValues ) != EMPTY )
+            return current;
+
+          // a primary without a value for a name falls back to the rest
+          // of the chain, so names it overrides with null are left out
+
+          final var seen =
+            Collections.newSetFromMap (
+              new IdentityHashMap< Name, Boolean > ()
+            );
+
+          for ( var i = 0; i < primaryNames.size (); i++ ) {
+
+            if ( seen.add ( primaryNames.get ( i ) ) && primaryValues.get ( i ) != null ) {
+
+              names.add (
+                primaryNames.get ( i )
+              );
+
+              values.add (
+                primaryValues.get ( i )
+              );
+
+            }
+
+          }
+
+          current =
+            overlay.environment;
+
+        } else {
+
+          return
+            current;
+
+        }
+
+      }
+
+    }
+
+
+    private static int index (
+      final Name name
+    ) {
+
+      final var hash =
+        System.identityHashCode (
+          name
+        );
+
+      return
+        hash ^ ( hash >>> 16 );
+
+    }
+
+
+    @Override
+    public Object get (
+      final Name lookup,
+      final Object defVal
+    ) {
+
+      final var mask =
+        names.length - 1;
+
+      for (
+        var i = index ( lookup ) & mask;
+        ;
+        i = ( i + 1 ) & mask
+      ) {
+
+        final var name =
+          names[i];
+
+        if ( name == lookup )
+          return values[i];
+
+        if ( name == null )
+          return environment.get ( lookup, defVal );
+
+      }
+
+    }
+
+
+    // the table never changes, so only the rest of the chain can
+
+    @Override
+    public long version () {
+
+      return
+        environment.version ();
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      return
+        environment.onChange (
+          listener
+        );
+
+    }
+
+  }
+
+
+  // relays the names an environment reports as changed to a cache map held
+  // weakly, so that a cache no longer in use is not kept reachable by the
+  // environment it fronts; the subscription is cancelled once the cache
+  // is reclaimed, without waiting for the environment to change
+
+  private static final class Invalidation
+    implements Consumer< Name > {
+
+    // created with the first cache, rather than when the api is loaded
+
+    private static final Cleaner CLEANER = Cleaner.create ();
+
+    private final WeakReference< Map< Name, ? > > map;
+
+    private Invalidation (
+      final Map< Name, ? > map
+    ) {
+
+      this.map =
+        new WeakReference<> (
+          map
+        );
+
+    }
+
+
+    static void subscribe (
+      final Object cache,
+      final Environment environment,
+      final Map< Name, ? > map
+    ) {
+
+      final var subscription =
+        environment.onChange (
+          new Invalidation (
+            map
+          )
+        );
+
+      CLEANER.register (
+        cache,
+        subscription::cancel
+      );
+
+    }
+
+
+    @Override
+    public void accept (
+      final Name name
+    ) {
+
+      final var cache =
+        map.get ();
+
+      if ( cache != null )
+        cache.remove ( name );
+
+    }
+
+  }
+
+
+  // the cache of Environment.memorize(), which drops the names the
+  // environment reports as changed; a lookup that races with a change
+  // is not kept, as the version has moved on by the time it is checked
+
+  private static final class Memo
+    implements Environment {
+
+    private final Environment                     environment;
+    private final Map< Name, Optional< Object > > map;
+
+    Memo (
+      final Environment environment
+    ) {
+
+      this.environment =
+        environment;
+
+      this.map =
+        new ConcurrentHashMap<> ();
+
+      Invalidation.subscribe (
+        this,
+        environment,
+        map
+      );
+
+    }
+
+
+    @Override
+    public Object get (
+      final Name lookup,
+      final Object defVal
+    ) {
+
+      final var cached =
+        map.get (
+          lookup
+        );
+
+      if ( cached != null )
+        return cached.orElse ( defVal );
+
+      final var version =
+        environment.version ();
+
+      final var value =
+        ofNullable (
+          environment.get (
+            lookup,
+            null
+          )
+        );
+
+      map.putIfAbsent (
+        lookup,
+        value
+      );
+
+      if ( environment.version () != version ) {
+
+        map.remove (
+          lookup,
+          value
+        );
+
+      }
+
+      return
+        value.orElse (
+          defVal
+        );
+
+    }
+
+
+    @Override
+    public long version () {
+
+      return
+        environment.version ();
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      return
+        environment.onChange (
+          listener
+        );
+
+    }
+
+  }
+
 }
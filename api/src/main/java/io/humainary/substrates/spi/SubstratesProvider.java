@@ -9,8 +9,11 @@ import io.humainary.substrates.Substrates.*;
 
 import java.lang.reflect.Member;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.*;
@@ -151,6 +154,46 @@ public interface SubstratesProvider
   }
 
 
+  default int id (
+    final Name name
+  ) {
+
+    requireNonNull (
+      name
+    );
+
+    return
+      -1;
+
+  }
+
+
+  default Name name (
+    final int id
+  ) {
+
+    throw
+      new IllegalArgumentException (
+        Integer.toString ( id )
+      );
+
+  }
+
+
+  default Stream< Name > descendants (
+    final Name prefix
+  ) {
+
+    requireNonNull (
+      prefix
+    );
+
+    return
+      Stream.empty ();
+
+  }
+
+
   default Environment environment () {
 
     return
@@ -175,6 +218,37 @@ public interface SubstratesProvider
   }
 
 
+  default Environment environment (
+    final Map< Name, ? > map
+  ) {
+
+    requireNonNull (
+      map
+    );
+
+    var environment =
+      Environment.EMPTY;
+
+    for ( final var entry : map.entrySet () ) {
+
+      if ( entry.getValue () != null ) {
+
+        environment =
+          environment.override (
+            requireNonNull ( entry.getKey () ),
+            entry.getValue ()
+          );
+
+      }
+
+    }
+
+    return
+      environment.compact ();
+
+  }
+
+
   default Environment environment (
     final Lookup< Object > lookup
   ) {
@@ -183,24 +257,63 @@ public interface SubstratesProvider
       lookup
     );
 
+    // a lookup that is itself an environment has its version and changes reported
+
+    final var source =
+      lookup instanceof Environment
+      ? (Environment) lookup
+      : Environment.EMPTY;
+
     return
-      ( name, defVal ) -> {
-        try {
+      new Environment () {
+
+        @Override
+        public Object get (
+          final Name name,
+          final Object defVal
+        ) {
+
+          try {
+
+            return
+              lookup.get (
+                name,
+                defVal
+              );
+
+          } catch (
+            final Throwable error
+          ) {
+
+            return
+              defVal;
+
+          }
+
+        }
+
+
+        @Override
+        public long version () {
 
           return
-            lookup.get (
-              name,
-              defVal
-            );
+            source.version ();
+
+        }
+
 
-        } catch (
-          final Throwable error
+        @Override
+        public Subscription onChange (
+          final Consumer< ? super Name > listener
         ) {
 
           return
-            defVal;
+            source.onChange (
+              listener
+            );
 
         }
+
       };
 
   }
@@ -352,11 +465,14 @@ public interface SubstratesProvider
     final T defValue
   ) {
 
+    //noinspection unchecked
     return
       environment ->
-        environment.< T > getObject ( name, type )
-          .orElse ( defValue );
-
+        environment.getObject (
+          name,
+          (Class< T >) type,
+          defValue
+        );
 
   }
 
@@ -375,8 +491,7 @@ public interface SubstratesProvider
           name,
           type,
           alt,
-          mapper
-        ).orElse (
+          mapper,
           defValue
         );
 
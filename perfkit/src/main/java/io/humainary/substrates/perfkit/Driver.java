@@ -5,13 +5,20 @@
 package io.humainary.substrates.perfkit;
 
 import io.humainary.devkit.perfkit.PerfKit;
+import io.humainary.substrates.sdk.Names;
+import io.humainary.substrates.sdk.SnapshotEnvironment;
 import org.openjdk.jmh.annotations.*;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Random;
 
 import static io.humainary.substrates.Substrates.*;
 import static io.humainary.substrates.Substrates.Environment.EMPTY;
 import static java.lang.Thread.State.BLOCKED;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
 
 /**
  * The PerfKit utility class for micro-benchmarking purposes.
@@ -51,9 +58,20 @@ public class Driver
   private static final Variable< Name >         VAR_NAME           = variable ( FIRST_NAME, NAME_VALUE );
   private static final Variable< Thread.State > VAR_ENUM           = variable ( FIRST_NAME, ENUM_CLASS, ENUM_VALUE );
   private static final Environment              ENV_STRING_VALUE   = environment ( name ( FIRST ), FIRST );
-
-  private Method method;
-  private Name   name;
+  private static final Environment              ENV_SNAPSHOT       = SnapshotEnvironment.builder ().put ( FIRST_NAME, LONG_VALUE ).build ();
+  private static final int                      NAMES              = 100_000;
+  private static final int                      PATHS              = 10_000;
+  private static final int[]                    DEPTHS             = { 1, 8, 32, 128 };
+
+  private Method        method;
+  private Name          name;
+  private Name[]        names;
+  private String[]      paths;
+  private byte[][]      bytes;
+  private Ascii[]       views;
+  private Names         table;
+  private Environment[] chains;
+  private Environment[] compacts;
 
 
   @Setup ( Level.Trial )
@@ -70,6 +88,99 @@ public class Driver
         method
       );
 
+    final var random =
+      new Random ( NAMES );
+
+    names =
+      new Name[NAMES];
+
+    for ( var i = 0; i < NAMES; i++ ) {
+
+      names[i] =
+        name (
+          FIRST_SECOND_THIRD
+        ).name (
+          "service" + random.nextInt ( 100 ),
+          "instrument" + random.nextInt ( 1000 )
+        ).name (
+          "metric" + i
+        );
+
+    }
+
+    // dotted paths of 5 to 12 segments as found in config dumps
+
+    paths =
+      new String[PATHS];
+
+    for ( var i = 0; i < PATHS; i++ ) {
+
+      final var path =
+        new StringBuilder (
+          "io.humainary.service" + random.nextInt ( 100 )
+        );
+
+      for ( var j = random.nextInt ( 8 ) + 1; j > 0; j-- )
+        path.append ( ".component" ).append ( random.nextInt ( 10 ) );
+
+      paths[i] =
+        path.append ( ".metric" ).append ( i ).toString ();
+
+    }
+
+    bytes =
+      new byte[PATHS][];
+
+    for ( var i = 0; i < PATHS; i++ )
+      bytes[i] = paths[i].getBytes ( UTF_8 );
+
+    // the same bytes as a char sequence, which
+    // the table scans for separators a char at a time
+
+    views =
+      new Ascii[PATHS];
+
+    for ( var i = 0; i < PATHS; i++ )
+      views[i] = new Ascii ( bytes[i] );
+
+    table =
+      Names.create ();
+
+    for ( final var path : bytes )
+      table.name ( path );
+
+    // override chains above the environment holding the name looked up,
+    // so that each lookup has to pass every layer of the chain
+
+    chains =
+      new Environment[DEPTHS.length];
+
+    compacts =
+      new Environment[DEPTHS.length];
+
+    for ( var i = 0; i < DEPTHS.length; i++ ) {
+
+      var chain =
+        ENV_STRING_VALUE;
+
+      for ( var j = 0; j < DEPTHS[i]; j++ ) {
+
+        chain =
+          chain.override (
+            FIRST_NAME.name ( "override" + j ),
+            INTEGER_VALUE
+          );
+
+      }
+
+      chains[i] =
+        chain;
+
+      compacts[i] =
+        chain.compact ();
+
+    }
+
   }
 
   /**
@@ -86,6 +197,130 @@ public class Driver
 
   }
 
+  /**
+   * Parse 10k dotted paths of 5 to 12 segments through {@code Substrates.name(String)}, reported per path.
+   */
+
+  @Benchmark
+  @OperationsPerInvocation ( PATHS )
+  public Name name_parse_paths () {
+
+    Name result = null;
+
+    for ( final var path : paths ) {
+
+      result =
+        name (
+          path
+        );
+
+    }
+
+    return
+      result;
+
+  }
+
+  /**
+   * Resolve 10k interned UTF-8 paths of 5 to 12 segments, scanned for separators a word at a time.
+   */
+
+  @Benchmark
+  @OperationsPerInvocation ( PATHS )
+  public Name names_parse_bytes () {
+
+    Name result = null;
+
+    for ( final var path : bytes ) {
+
+      result =
+        table.name (
+          path
+        );
+
+    }
+
+    return
+      result;
+
+  }
+
+  /**
+   * Resolve the same paths from their bytes scanned a byte at a time, as the baseline for
+   * {@link #names_parse_bytes()}; no segment is decoded, as the paths are already interned.
+   */
+
+  @Benchmark
+  @OperationsPerInvocation ( PATHS )
+  public Name names_parse_bytes_scalar () {
+
+    Name result = null;
+
+    for ( final var path : views ) {
+
+      result =
+        table.name (
+          path
+        );
+
+    }
+
+    return
+      result;
+
+  }
+
+  /**
+   * Intern 10k UTF-8 paths of 5 to 12 segments into a new table, reported per path.
+   * <p>
+   * With the gc profiler, the normalized allocation rate is the footprint of each name,
+   * as segment values repeated across paths are pooled rather than decoded again.
+   */
+
+  @Benchmark
+  @OperationsPerInvocation ( PATHS )
+  public Names names_footprint () {
+
+    return
+      intern (
+        Names.create ()
+      );
+
+  }
+
+  /**
+   * Intern the same paths into an unpooled table, as the baseline for {@link #names_footprint()};
+   * the difference in normalized allocation is the saving of the segment pool.
+   */
+
+  @Benchmark
+  @OperationsPerInvocation ( PATHS )
+  public Names names_footprint_unpooled () {
+
+    return
+      intern (
+        Names.unpooled ()
+      );
+
+  }
+
+  private Names intern (
+    final Names table
+  ) {
+
+    for ( final var path : bytes ) {
+
+      table.name (
+        path
+      );
+
+    }
+
+    return
+      table;
+
+  }
+
   /**
    * Create of a root name.
    */
@@ -176,6 +411,49 @@ public class Driver
 
   }
 
+  /**
+   * Sort 100k names using {@code Name.compareTo}, reported per name.
+   */
+
+  @Benchmark
+  @OperationsPerInvocation ( NAMES )
+  public Name[] name_sort () {
+
+    final var result =
+      names.clone ();
+
+    Arrays.sort (
+      result
+    );
+
+    return
+      result;
+
+  }
+
+  /**
+   * Sort 100k names by their path strings, reported per name.
+   */
+
+  @Benchmark
+  @OperationsPerInvocation ( NAMES )
+  public Name[] name_sort_path () {
+
+    final var result =
+      names.clone ();
+
+    Arrays.sort (
+      result,
+      comparing (
+        Name::toString
+      )
+    );
+
+    return
+      result;
+
+  }
+
   /**
    * Create a composite name from a class.
    */
@@ -190,6 +468,20 @@ public class Driver
 
   }
 
+  /**
+   * Create a composite name by parsing a class name.
+   */
+
+  @Benchmark
+  public Name name_class_uncached () {
+
+    return
+      name (
+        getClass ().getName ()
+      );
+
+  }
+
   /**
    * Create a composite name from a class and simple string.
    */
@@ -219,6 +511,22 @@ public class Driver
 
   }
 
+  /**
+   * Create a composite name by parsing a method's class name and appending its name.
+   */
+
+  @Benchmark
+  public Name name_method_uncached () {
+
+    return
+      name (
+        method.getDeclaringClass ().getName ()
+      ).name (
+        method.getName ()
+      );
+
+  }
+
   /**
    * Calls {@code Substrates.environment(string,value)}
    */
@@ -399,6 +707,96 @@ public class Driver
 
   }
 
+  /**
+   * Calls {@code Environment.getLong(name,long)}, expected not to allocate.
+   */
+
+  @Benchmark
+  public static long environment_empty_get_long_primitive () {
+
+    return
+      EMPTY.getLong (
+        FIRST_NAME,
+        1L
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.getInteger(name,int)}, expected not to allocate.
+   */
+
+  @Benchmark
+  public static int environment_empty_get_integer_primitive () {
+
+    return
+      EMPTY.getInteger (
+        FIRST_NAME,
+        1
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.getDouble(name,double)}, expected not to allocate.
+   */
+
+  @Benchmark
+  public static double environment_empty_get_double_primitive () {
+
+    return
+      EMPTY.getDouble (
+        FIRST_NAME,
+        1.0D
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.getFloat(name,float)}, expected not to allocate.
+   */
+
+  @Benchmark
+  public static float environment_empty_get_float_primitive () {
+
+    return
+      EMPTY.getFloat (
+        FIRST_NAME,
+        1.0F
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.getBoolean(name,boolean)}, expected not to allocate.
+   */
+
+  @Benchmark
+  public static boolean environment_empty_get_boolean_primitive () {
+
+    return
+      EMPTY.getBoolean (
+        FIRST_NAME,
+        true
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.getLong(name,long)} on a snapshot holding the name, expected not to allocate.
+   */
+
+  @Benchmark
+  public static long environment_snapshot_get_long_primitive () {
+
+    return
+      ENV_SNAPSHOT.getLong (
+        FIRST_NAME,
+        0L
+      );
+
+  }
+
   /**
    * Calls {@code Environment.environment(environment)}.
    */
@@ -444,6 +842,126 @@ public class Driver
 
   }
 
+  /**
+   * Calls {@code Environment.get(name,value)} through a chain of 1 overrides.
+   */
+
+  @Benchmark
+  public Object environment_environment_chain_1 () {
+
+    return
+      chains[0].get (
+        FIRST_NAME,
+        STRING_VALUE
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.get(name,value)} through a compacted chain of 1 overrides.
+   */
+
+  @Benchmark
+  public Object environment_environment_compact_1 () {
+
+    return
+      compacts[0].get (
+        FIRST_NAME,
+        STRING_VALUE
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.get(name,value)} through a chain of 8 overrides.
+   */
+
+  @Benchmark
+  public Object environment_environment_chain_8 () {
+
+    return
+      chains[1].get (
+        FIRST_NAME,
+        STRING_VALUE
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.get(name,value)} through a compacted chain of 8 overrides.
+   */
+
+  @Benchmark
+  public Object environment_environment_compact_8 () {
+
+    return
+      compacts[1].get (
+        FIRST_NAME,
+        STRING_VALUE
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.get(name,value)} through a chain of 32 overrides.
+   */
+
+  @Benchmark
+  public Object environment_environment_chain_32 () {
+
+    return
+      chains[2].get (
+        FIRST_NAME,
+        STRING_VALUE
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.get(name,value)} through a compacted chain of 32 overrides.
+   */
+
+  @Benchmark
+  public Object environment_environment_compact_32 () {
+
+    return
+      compacts[2].get (
+        FIRST_NAME,
+        STRING_VALUE
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.get(name,value)} through a chain of 128 overrides.
+   */
+
+  @Benchmark
+  public Object environment_environment_chain_128 () {
+
+    return
+      chains[3].get (
+        FIRST_NAME,
+        STRING_VALUE
+      );
+
+  }
+
+  /**
+   * Calls {@code Environment.get(name,value)} through a compacted chain of 128 overrides.
+   */
+
+  @Benchmark
+  public Object environment_environment_compact_128 () {
+
+    return
+      compacts[3].get (
+        FIRST_NAME,
+        STRING_VALUE
+      );
+
+  }
+
   /**
    * Calls {@code Variable<Integer>.of(environment)}.
    */
@@ -723,4 +1241,72 @@ public class Driver
 
   }
 
-}
\ No newline at end of file
+
+  // an ascii byte array viewed as chars without decoding
+
+  private static final class Ascii
+    implements CharSequence {
+
+    private final byte[] bytes;
+
+    Ascii (
+      final byte[] bytes
+    ) {
+
+      this.bytes =
+        bytes;
+
+    }
+
+
+    @Override
+    public int length () {
+
+      return
+        bytes.length;
+
+    }
+
+
+    @Override
+    public char charAt (
+      final int index
+    ) {
+
+      return
+        (char) bytes[index];
+
+    }
+
+
+    @Override
+    public CharSequence subSequence (
+      final int start,
+      final int end
+    ) {
+
+      return
+        new String (
+          bytes,
+          start,
+          end - start,
+          US_ASCII
+        );
+
+    }
+
+
+    @Override
+    public String toString () {
+
+      return
+        new String (
+          bytes,
+          US_ASCII
+        );
+
+    }
+
+  }
+
+}
@@ -22,9 +22,15 @@ import org.junit.jupiter.api.MethodOrderer.OrderAnnotation;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
 
 import static io.humainary.devkit.perfkit.PerfKit.execute;
 import static io.humainary.devkit.perfkit.PerfKit.target;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @TestMethodOrder (
   OrderAnnotation.class
@@ -32,8 +38,16 @@ import static io.humainary.devkit.perfkit.PerfKit.target;
 final class DriverTest {
 
   private static final String PROFILE    = "spi";
-  private static final String CONCURRENT = "name_";
-  private static final String ALL        = "*";
+  private static final String CONCURRENT = "name_(?!sort|parse_paths)";
+  private static final String SINGLE     = "\\b(?!name_sort|name_parse_paths|names_)\\w+$";
+  private static final String BULK       = "\\b(name_sort|name_parse_paths|names_)\\w*$";
+  private static final String UNBOXED    = ".*_get_(\\w+_primitive|string|char_seq|name|enum)$";
+  private static final String ALLOCATED  = "gc.alloc.rate.norm";
+
+  // short iterations, as allocation per call settles
+  // quickly and is not what the timed runs measure
+
+  private static final TimeValue ITERATION = TimeValue.milliseconds ( 500L );
 
   private static final Target TARGET =
     target (
@@ -49,7 +63,7 @@ final class DriverTest {
     execute (
       TARGET,
       PROFILE,
-      ALL,
+      SINGLE,
       1,
       250.0,
       Assertions::fail
@@ -57,6 +71,24 @@ final class DriverTest {
 
   }
 
+  // the bulk benchmarks sort, parse or intern whole arrays, and
+  // though reported per element, each costs many single lookups
+
+  @Test
+  @Order ( 3 )
+  void bulk () {
+
+    execute (
+      TARGET,
+      PROFILE,
+      BULK,
+      1,
+      2500.0,
+      Assertions::fail
+    );
+
+  }
+
   @Test
   @Order ( 2 )
   void two () {
@@ -87,4 +119,49 @@ final class DriverTest {
 
   }
 
+  @Test
+  @Order ( 5 )
+  void allocation ()
+  throws RunnerException {
+
+    final var results =
+      new Runner (
+        new OptionsBuilder ()
+          .include ( Driver.class.getName () + UNBOXED )
+          .addProfiler ( GCProfiler.class )
+          .forks ( 1 )
+          .warmupIterations ( 3 )
+          .warmupTime ( ITERATION )
+          .measurementIterations ( 3 )
+          .measurementTime ( ITERATION )
+          .build ()
+      ).run ();
+
+    assertTrue (
+      !results.isEmpty ()
+    );
+
+    // older releases of the profiler prefix its result labels
+
+    for ( final var result : results ) {
+
+      result.getSecondaryResults ().forEach (
+        ( label, allocated ) -> {
+
+          if ( label.endsWith ( ALLOCATED ) ) {
+
+            assertTrue (
+              allocated.getScore () < 1.0,
+              result.getParams ().getBenchmark () + " allocated " + allocated.getScore () + " bytes per call"
+            );
+
+          }
+
+        }
+      );
+
+    }
+
+  }
+
 }
@@ -12,6 +12,7 @@ import io.humainary.substrates.Substrates.Referent;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
 
 import static java.util.Optional.empty;
 
@@ -75,4 +76,13 @@ public abstract class AbstractContainer< O extends Referent >
 
   }
 
+
+  @Override
+  public final Spliterator< O > spliterator () {
+
+    return
+      map.values ().spliterator ();
+
+  }
+
 }
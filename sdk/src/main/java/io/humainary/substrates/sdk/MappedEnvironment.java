@@ -0,0 +1,617 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Name;
+
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static java.lang.invoke.MethodHandles.arrayElementVarHandle;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Arrays.copyOf;
+
+/**
+ * An immutable {@link Environment} backed by a memory-mapped file of {@code key=value} lines.
+ * <p>
+ * The file is a flat subset of the properties format, encoded in UTF-8: a key is separated from
+ * its value by {@code '='}, {@code ':'} or whitespace, lines starting with {@code '#'} or {@code '!'}
+ * are comments, and escapes and line continuations are not supported. A later line for the same
+ * key replaces an earlier one.
+ * <p>
+ * The file is scanned once when opened, indexing each key by the {@link Name#stableHash()} of
+ * its path, computed from the mapped bytes, against the offsets of its value. No name or string is
+ * created while indexing, so the heap used grows by a few primitive slots per key rather than
+ * with the size of the file. A value is decoded on its first lookup and kept with the name it
+ * was matched by, so later lookups of that name are a single probe.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+public final class MappedEnvironment
+  implements Environment {
+
+  private static final VarHandle AA     = arrayElementVarHandle ( Object[].class );
+  private static final long      OFFSET = 0xCBF29CE484222325L;
+  private static final long      PRIME  = 0x100000001B3L;
+
+  private final ByteBuffer buffer;
+
+  // the index, an open-addressing table over the stable hashes
+  // of the keys, with the extents of each key and value
+
+  private final long[]   hashes;
+  private final int[]    keys;
+  private final int[]    values;
+  private final int[]    lengths;
+  private final Object[] entries;
+  private final int      size;
+
+  private MappedEnvironment (
+    final ByteBuffer buffer,
+    final Lines lines
+  ) {
+
+    var capacity = 2;
+
+    while ( capacity < lines.size << 1 )
+      capacity <<= 1;
+
+    this.buffer =
+      buffer;
+
+    this.hashes =
+      new long[capacity];
+
+    this.keys =
+      new int[capacity];
+
+    this.values =
+      new int[capacity];
+
+    this.lengths =
+      new int[capacity];
+
+    this.entries =
+      new Object[capacity];
+
+    // key offsets are held one based so that zero marks a free slot
+
+    final var mask =
+      capacity - 1;
+
+    var count = 0;
+
+    for ( var l = 0; l < lines.size; l++ ) {
+
+      final var hash =
+        lines.hashes[l];
+
+      var i =
+        (int) ( hash ^ hash >>> 32 ) & mask;
+
+      while ( keys[i] != 0 && !( hashes[i] == hash && same ( keys[i] - 1, lines.keys[l] ) ) )
+        i = ( i + 1 ) & mask;
+
+      if ( keys[i] == 0 )
+        count++;
+
+      hashes[i] =
+        hash;
+
+      keys[i] =
+        lines.keys[l] + 1;
+
+      values[i] =
+        lines.values[l];
+
+      lengths[i] =
+        lines.lengths[l];
+
+    }
+
+    this.size =
+      count;
+
+  }
+
+
+  public static MappedEnvironment open (
+    final Path path
+  ) throws IOException {
+
+    try (
+      final var channel =
+        FileChannel.open (
+          path,
+          READ
+        )
+    ) {
+
+      final var length =
+        channel.size ();
+
+      if ( length > Integer.MAX_VALUE )
+        throw new IOException ( path + ": " + length + " bytes" );
+
+      return
+        of (
+          channel.map (
+            READ_ONLY,
+            0L,
+            length
+          )
+        );
+
+    }
+
+  }
+
+
+  // the remaining bytes of the buffer must not be modified afterwards
+
+  public static MappedEnvironment of (
+    final ByteBuffer buffer
+  ) {
+
+    final var content =
+      buffer.slice ();
+
+    return
+      new MappedEnvironment (
+        content,
+        scan (
+          content
+        )
+      );
+
+  }
+
+
+  public int size () {
+
+    return
+      size;
+
+  }
+
+
+  @Override
+  public Object get (
+    final Name name,
+    final Object defVal
+  ) {
+
+    final var hash =
+      name.stableHash ();
+
+    final var mask =
+      keys.length - 1;
+
+    for (
+      var i = (int) ( hash ^ hash >>> 32 ) & mask;
+      keys[i] != 0;
+      i = ( i + 1 ) & mask
+    ) {
+
+      if ( hashes[i] != hash )
+        continue;
+
+      final var entry = (Entry)
+        AA.getAcquire (
+          entries,
+          i
+        );
+
+      if ( entry != null && entry.name == name )
+        return entry.value;
+
+      if ( matches ( i, name ) )
+        return decode ( i, name );
+
+    }
+
+    return
+      defVal;
+
+  }
+
+
+  private boolean matches (
+    final int slot,
+    final Name name
+  ) {
+
+    return
+      key ( slot ).equals (
+        name.toPathBuffer ()
+      );
+
+  }
+
+
+  private ByteBuffer key (
+    final int slot
+  ) {
+
+    final var start =
+      keys[slot] - 1;
+
+    return
+      buffer.slice (
+        start,
+        end ( start ) - start
+      );
+
+  }
+
+
+  private ByteBuffer value (
+    final int slot
+  ) {
+
+    return
+      buffer.slice (
+        values[slot],
+        lengths[slot]
+      );
+
+  }
+
+
+  private int find (
+    final long hash,
+    final ByteBuffer key
+  ) {
+
+    final var mask =
+      keys.length - 1;
+
+    for (
+      var i = (int) ( hash ^ hash >>> 32 ) & mask;
+      keys[i] != 0;
+      i = ( i + 1 ) & mask
+    ) {
+
+      if ( hashes[i] == hash && key ( i ).equals ( key ) )
+        return i;
+
+    }
+
+    return
+      -1;
+
+  }
+
+
+  // reports the keys added, removed or mapped to other bytes since a previous parse
+
+  void changes (
+    final MappedEnvironment previous,
+    final Consumer< ? super String > changed
+  ) {
+
+    for ( var i = 0; i < keys.length; i++ ) {
+
+      if ( keys[i] != 0 ) {
+
+        final var j =
+          previous.find (
+            hashes[i],
+            key ( i )
+          );
+
+        if ( j < 0 || !previous.value ( j ).equals ( value ( i ) ) )
+          changed.accept ( UTF_8.decode ( key ( i ) ).toString () );
+
+      }
+
+    }
+
+    for ( var j = 0; j < previous.keys.length; j++ ) {
+
+      if ( previous.keys[j] != 0 && find ( previous.hashes[j], previous.key ( j ) ) < 0 )
+        changed.accept ( UTF_8.decode ( previous.key ( j ) ).toString () );
+
+    }
+
+  }
+
+
+  // decoding races are benign, as each thread publishes an equal value
+
+  private String decode (
+    final int slot,
+    final Name name
+  ) {
+
+    final var bytes =
+      new byte[lengths[slot]];
+
+    buffer.get (
+      values[slot],
+      bytes
+    );
+
+    final var value =
+      new String (
+        bytes,
+        UTF_8
+      );
+
+    AA.setRelease (
+      entries,
+      slot,
+      new Entry (
+        name,
+        value
+      )
+    );
+
+    return
+      value;
+
+  }
+
+
+  private boolean same (
+    final int first,
+    final int second
+  ) {
+
+    final var length =
+      end ( first ) - first;
+
+    return
+      end ( second ) - second == length
+        && buffer.slice ( first, length ).equals ( buffer.slice ( second, length ) );
+
+  }
+
+
+  // the end of the key starting at an offset
+
+  private int end (
+    final int start
+  ) {
+
+    var index =
+      start;
+
+    while ( index < buffer.limit () && !terminator ( buffer.get ( index ) ) )
+      index++;
+
+    return
+      index;
+
+  }
+
+
+  private static Lines scan (
+    final ByteBuffer buffer
+  ) {
+
+    final var lines =
+      new Lines ();
+
+    final var limit =
+      buffer.limit ();
+
+    var index =
+      limit >= 3
+        && buffer.get ( 0 ) == (byte) 0xEF
+        && buffer.get ( 1 ) == (byte) 0xBB
+        && buffer.get ( 2 ) == (byte) 0xBF
+      ? 3
+      : 0;
+
+    while ( index < limit ) {
+
+      while ( index < limit && blank ( buffer.get ( index ) ) )
+        index++;
+
+      if ( index == limit )
+        break;
+
+      var b =
+        buffer.get ( index );
+
+      if ( b == '\r' || b == '\n' || b == '#' || b == '!' || b == '=' || b == ':' ) {
+
+        while ( index < limit && buffer.get ( index ) != '\n' )
+          index++;
+
+        index++;
+
+        continue;
+
+      }
+
+      // the key, each segment hashed with fnv-1a over its bytes
+      // and then combined with Name.stableHash(long, long)
+
+      final var key =
+        index;
+
+      var hash = 0L;
+      var segment = OFFSET;
+
+      while ( index < limit && !terminator ( b = buffer.get ( index ) ) ) {
+
+        if ( b == '.' ) {
+
+          hash =
+            Name.stableHash (
+              hash,
+              segment
+            );
+
+          segment =
+            OFFSET;
+
+        } else {
+
+          segment =
+            ( segment ^ ( b & 0xFF ) ) * PRIME;
+
+        }
+
+        index++;
+
+      }
+
+      hash =
+        Name.stableHash (
+          hash,
+          segment
+        );
+
+      while ( index < limit && blank ( buffer.get ( index ) ) )
+        index++;
+
+      if ( index < limit && ( ( b = buffer.get ( index ) ) == '=' || b == ':' ) )
+        index++;
+
+      while ( index < limit && blank ( buffer.get ( index ) ) )
+        index++;
+
+      // the value, up to the end of the line
+
+      final var value =
+        index;
+
+      while ( index < limit && buffer.get ( index ) != '\n' )
+        index++;
+
+      var end =
+        index;
+
+      if ( end > value && buffer.get ( end - 1 ) == '\r' )
+        end--;
+
+      lines.add (
+        hash,
+        key,
+        value,
+        end - value
+      );
+
+    }
+
+    return
+      lines;
+
+  }
+
+
+  private static boolean terminator (
+    final byte b
+  ) {
+
+    return
+      b == '\r' || b == '\n' || separator ( b );
+
+  }
+
+
+  private static boolean separator (
+    final byte b
+  ) {
+
+    return
+      b == '=' || b == ':' || blank ( b );
+
+  }
+
+
+  private static boolean blank (
+    final byte b
+  ) {
+
+    return
+      b == ' ' || b == '\t' || b == '\f';
+
+  }
+
+
+  private static final class Entry {
+
+    final Name   name;
+    final String value;
+
+    Entry (
+      final Name name,
+      final String value
+    ) {
+
+      this.name =
+        name;
+
+      this.value =
+        value;
+
+    }
+
+  }
+
+
+  // the lines of the file in order, before they are indexed
+
+  private static final class Lines {
+
+    long[] hashes  = new long[64];
+    int[]  keys    = new int[64];
+    int[]  values  = new int[64];
+    int[]  lengths = new int[64];
+    int    size;
+
+    void add (
+      final long hash,
+      final int key,
+      final int value,
+      final int length
+    ) {
+
+      if ( size == hashes.length ) {
+
+        hashes =
+          copyOf ( hashes, size << 1 );
+
+        keys =
+          copyOf ( keys, size << 1 );
+
+        values =
+          copyOf ( values, size << 1 );
+
+        lengths =
+          copyOf ( lengths, size << 1 );
+
+      }
+
+      hashes[size] =
+        hash;
+
+      keys[size] =
+        key;
+
+      values[size] =
+        value;
+
+      lengths[size++] =
+        length;
+
+    }
+
+  }
+
+}
@@ -0,0 +1,509 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Name;
+import io.humainary.substrates.Substrates.Subscription;
+
+import java.io.Closeable;
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Cleaner;
+import java.lang.ref.Cleaner.Cleanable;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import static java.lang.invoke.MethodHandles.arrayElementVarHandle;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An {@link Environment} that caches the lookups of another, holding at most a fixed number of names.
+ * <p>
+ * As with {@link Environment#memorize()}, names without a value are cached as well, so a missing
+ * property does not repeatedly walk the environment chain. Unlike that unbounded cache, this one holds
+ * a fixed number of names and counts its {@link #hits() hits}, {@link #misses() misses} and
+ * {@link #evictions() evictions}. Once full, an entry is evicted using the CLOCK policy: entries that
+ * have been read since the hand last passed them are spared once. Reads probe the cache without
+ * locking; misses are looked up and then inserted under a lock.
+ * <p>
+ * A name the environment reports as {@link Environment#onChange(Consumer) changed} is dropped from the
+ * cache, and a value looked up while the {@link Environment#version() version} moved is not cached.
+ * The cache stops listening when {@link #close() closed}, or once it has been reclaimed.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+public final class MemorizingEnvironment
+  implements Environment, Closeable {
+
+  private static final VarHandle AA      = arrayElementVarHandle ( Object[].class );
+  private static final Cleaner   CLEANER = Cleaner.create ();
+
+  private final Environment environment;
+
+  // the clock of cached entries, in slot order, and the open-addressing
+  // index over them, sized so that it is never more than half full
+
+  private final Entry[]  clock;
+  private final Object[] table;
+  private       int      hand;
+  private       int      count;
+  private       int      dead;
+
+  private final LongAdder hits      = new LongAdder ();
+  private final LongAdder misses    = new LongAdder ();
+  private final LongAdder evictions = new LongAdder ();
+
+  private volatile Cleanable cleanable;
+
+  private MemorizingEnvironment (
+    final Environment environment,
+    final int capacity
+  ) {
+
+    this.environment =
+      environment;
+
+    this.clock =
+      new Entry[capacity];
+
+    this.table =
+      new Object[Integer.highestOneBit ( capacity ) << 2];
+
+  }
+
+
+  public static MemorizingEnvironment create (
+    final Environment environment,
+    final int capacity
+  ) {
+
+    requireNonNull (
+      environment
+    );
+
+    if ( capacity <= 0 || capacity > 1 << 28 )
+      throw new IllegalArgumentException ( Integer.toString ( capacity ) );
+
+    final var result =
+      new MemorizingEnvironment (
+        environment,
+        capacity
+      );
+
+    // the subscription is cancelled once, when closed or once reclaimed
+
+    final var subscription =
+      environment.onChange (
+        new Invalidation (
+          result
+        )
+      );
+
+    result.cleanable =
+      CLEANER.register (
+        result,
+        subscription::cancel
+      );
+
+    return
+      result;
+
+  }
+
+
+  @Override
+  public Object get (
+    final Name name,
+    final Object defVal
+  ) {
+
+    final var hash =
+      Node.spread (
+        name.hashCode ()
+      );
+
+    final var mask =
+      table.length - 1;
+
+    for (
+      var i = hash & mask;
+      ;
+      i = ( i + 1 ) & mask
+    ) {
+
+      final var entry = (Entry)
+        AA.getAcquire (
+          table,
+          i
+        );
+
+      if ( entry == null )
+        break;
+
+      if ( entry.name == name || entry.hash == hash && entry.name.equals ( name ) ) {
+
+        // a racy write, as losing a mark only
+        // makes the entry a candidate sooner
+
+        if ( !entry.referenced )
+          entry.referenced = true;
+
+        hits.increment ();
+
+        return
+          entry.value != null
+          ? entry.value
+          : defVal;
+
+      }
+
+    }
+
+    misses.increment ();
+
+    final var version =
+      environment.version ();
+
+    final var value =
+      environment.get (
+        name,
+        null
+      );
+
+    insert (
+      name,
+      hash,
+      value,
+      version
+    );
+
+    return
+      value != null
+      ? value
+      : defVal;
+
+  }
+
+
+  public long hits () {
+
+    return
+      hits.sum ();
+
+  }
+
+
+  public long misses () {
+
+    return
+      misses.sum ();
+
+  }
+
+
+  public long evictions () {
+
+    return
+      evictions.sum ();
+
+  }
+
+
+  public synchronized int size () {
+
+    return
+      count - dead;
+
+  }
+
+
+  @Override
+  public long version () {
+
+    return
+      environment.version ();
+
+  }
+
+
+  @Override
+  public Subscription onChange (
+    final Consumer< ? super Name > listener
+  ) {
+
+    return
+      environment.onChange (
+        listener
+      );
+
+  }
+
+
+  // stops listening for changes, after which cached values may be stale
+
+  @Override
+  public void close () {
+
+    cleanable.clean ();
+
+  }
+
+
+  // the entry is left in the clock, marked, until the hand reuses its slot
+
+  private synchronized void invalidate (
+    final Name name
+  ) {
+
+    final var mask =
+      table.length - 1;
+
+    for (
+      var i = Node.spread ( name.hashCode () ) & mask;
+      table[i] != null;
+      i = ( i + 1 ) & mask
+    ) {
+
+      final var entry =
+        (Entry) table[i];
+
+      if ( entry.name.equals ( name ) ) {
+
+        remove (
+          entry
+        );
+
+        entry.removed =
+          true;
+
+        entry.referenced =
+          false;
+
+        dead++;
+
+        return;
+
+      }
+
+    }
+
+  }
+
+
+  // a value looked up while the environment changed may be stale, so it
+  // is not cached; the version is checked under the lock invalidate takes
+
+  private synchronized void insert (
+    final Name name,
+    final int hash,
+    final Object value,
+    final long version
+  ) {
+
+    if ( environment.version () != version )
+      return;
+
+    final var mask =
+      table.length - 1;
+
+    var i =
+      hash & mask;
+
+    for (
+      Object current;
+      ( current = table[i] ) != null;
+      i = ( i + 1 ) & mask
+    ) {
+
+      if ( ( (Entry) current ).name.equals ( name ) )
+        return;
+
+    }
+
+    final int slot;
+
+    if ( count < clock.length ) {
+
+      slot =
+        count++;
+
+    } else {
+
+      while ( clock[hand].referenced ) {
+
+        clock[hand].referenced =
+          false;
+
+        hand =
+          ( hand + 1 ) % clock.length;
+
+      }
+
+      slot =
+        hand;
+
+      hand =
+        ( hand + 1 ) % clock.length;
+
+      if ( clock[slot].removed ) {
+
+        dead--;
+
+      } else {
+
+        remove (
+          clock[slot]
+        );
+
+        evictions.increment ();
+
+      }
+
+      // the removal may have shifted entries
+      // into the position found above
+
+      i =
+        hash & mask;
+
+      while ( table[i] != null )
+        i = ( i + 1 ) & mask;
+
+    }
+
+    final var entry =
+      new Entry (
+        name,
+        hash,
+        value
+      );
+
+    clock[slot] =
+      entry;
+
+    AA.setRelease (
+      table,
+      i,
+      entry
+    );
+
+  }
+
+
+  // deletes by shifting later entries of the probe sequence back,
+  // so that a concurrent reader at worst misses an entry and reloads it
+
+  private void remove (
+    final Entry entry
+  ) {
+
+    final var mask =
+      table.length - 1;
+
+    var i =
+      entry.hash & mask;
+
+    while ( table[i] != entry )
+      i = ( i + 1 ) & mask;
+
+    for (
+      var j = ( i + 1 ) & mask;
+      table[j] != null;
+      j = ( j + 1 ) & mask
+    ) {
+
+      final var home =
+        ( (Entry) table[j] ).hash & mask;
+
+      if ( ( j - home & mask ) >= ( j - i & mask ) ) {
+
+        AA.setRelease (
+          table,
+          i,
+          table[j]
+        );
+
+        i = j;
+
+      }
+
+    }
+
+    AA.setRelease (
+      table,
+      i,
+      null
+    );
+
+  }
+
+
+  // holds the cache weakly, so that one dropped without being closed is
+  // not kept reachable by the environment it fronts
+
+  private static final class Invalidation
+    implements Consumer< Name > {
+
+    private final WeakReference< MemorizingEnvironment > cache;
+
+    Invalidation (
+      final MemorizingEnvironment cache
+    ) {
+
+      this.cache =
+        new WeakReference<> (
+          cache
+        );
+
+    }
+
+
+    @Override
+    public void accept (
+      final Name name
+    ) {
+
+      final var environment =
+        cache.get ();
+
+      if ( environment != null )
+        environment.invalidate ( name );
+
+    }
+
+  }
+
+
+  private static final class Entry {
+
+    final Name   name;
+    final int    hash;
+    final Object value;
+
+    boolean referenced;
+    boolean removed;
+
+    Entry (
+      final Name name,
+      final int hash,
+      final Object value
+    ) {
+
+      this.name =
+        name;
+
+      this.hash =
+        hash;
+
+      this.value =
+        value;
+
+    }
+
+  }
+
+}
@@ -0,0 +1,505 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Name;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.copyOf;
+
+/**
+ * A compact binary codec for {@link Name} instances.
+ * <p>
+ * A name is written as a varint segment count followed by a varint code for each segment, outermost
+ * first. A code of zero introduces a segment not yet seen on the stream, written as a varint length
+ * and its UTF-8 bytes, which both sides then add to their dictionary; any other code refers to the
+ * dictionary entry at {@code code - 1}. An {@link Encoder} and the {@link Decoder} reading its output
+ * must therefore process the same records in the same order.
+ * <p>
+ * Decoding resolves segments directly against a {@link Names} table from the buffer, only
+ * materializing a string for segments not already interned. Both sides advance the buffer position
+ * and are not thread-safe. Off-heap memory can be written and read in place through a direct or
+ * mapped {@link ByteBuffer}, or the buffer view of a memory segment.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+public final class NameCodec {
+
+  private static final int CAPACITY = 64;
+
+  private NameCodec () {}
+
+
+  public static Encoder encoder () {
+
+    return
+      new Encoder ();
+
+  }
+
+
+  public static Decoder decoder (
+    final Names names
+  ) {
+
+    return
+      new Decoder (
+        names
+      );
+
+  }
+
+
+  public static final class Encoder {
+
+    // an open-addressing dictionary from segment to id,
+    // kept at most half full so that probes stay short
+
+    private String[] keys = new String[CAPACITY];
+    private int[]    ids  = new int[CAPACITY];
+    private int      size;
+
+    // scratch space reused across names
+
+    private String[] segments = new String[16];
+    private int[]    codes    = new int[16];
+    private byte[][] literals = new byte[16][];
+
+    private Encoder () {}
+
+
+    public int size () {
+
+      return
+        size;
+
+    }
+
+
+    public void encode (
+      final Name name,
+      final ByteBuffer buffer
+    ) {
+
+      final var depth =
+        name.depth ();
+
+      if ( segments.length < depth ) {
+
+        segments =
+          new String[depth];
+
+        codes =
+          new int[depth];
+
+        literals =
+          new byte[depth][];
+
+      }
+
+      var extent =
+        name;
+
+      for ( var i = depth - 1; i >= 0; i-- ) {
+
+        segments[i] =
+          extent.value ();
+
+        extent =
+          extent.enclosure ()
+            .orElse ( null );
+
+      }
+
+      // sized up front so that a record which does not fit
+      // leaves both the buffer and the dictionary untouched;
+      // a segment new to the dictionary is written once as
+      // a literal and then referenced by the id it will get
+
+      var length =
+        width ( depth );
+
+      var fresh = 0;
+
+      for ( var i = 0; i < depth; i++ ) {
+
+        var id =
+          find (
+            segments[i]
+          );
+
+        if ( id < 0 )
+          id = pending ( i );
+
+        literals[i] =
+          null;
+
+        if ( id < 0 ) {
+
+          final var bytes =
+            segments[i].getBytes (
+              UTF_8
+            );
+
+          literals[i] =
+            bytes;
+
+          codes[i] =
+            size + fresh++;
+
+          length +=
+            1 + width ( bytes.length ) + bytes.length;
+
+        } else {
+
+          codes[i] =
+            id;
+
+          length +=
+            width ( id + 1 );
+
+        }
+
+      }
+
+      if ( buffer.remaining () < length )
+        throw new BufferOverflowException ();
+
+      write (
+        buffer,
+        depth
+      );
+
+      for ( var i = 0; i < depth; i++ ) {
+
+        final var bytes =
+          literals[i];
+
+        if ( bytes != null ) {
+
+          write (
+            buffer,
+            0
+          );
+
+          write (
+            buffer,
+            bytes.length
+          );
+
+          buffer.put (
+            bytes
+          );
+
+          add (
+            segments[i]
+          );
+
+        } else {
+
+          write (
+            buffer,
+            codes[i] + 1
+          );
+
+        }
+
+        segments[i] =
+          null;
+
+        literals[i] =
+          null;
+
+      }
+
+    }
+
+
+    // the id given to a segment by an earlier literal of the same record, if any
+
+    private int pending (
+      final int index
+    ) {
+
+      for ( var i = 0; i < index; i++ ) {
+
+        if ( literals[i] != null && segments[i].equals ( segments[index] ) )
+          return codes[i];
+
+      }
+
+      return
+        -1;
+
+    }
+
+
+    private int find (
+      final String segment
+    ) {
+
+      final var mask =
+        keys.length - 1;
+
+      for (
+        var i = Node.spread ( segment.hashCode () ) & mask;
+        keys[i] != null;
+        i = ( i + 1 ) & mask
+      ) {
+
+        if ( keys[i].equals ( segment ) )
+          return ids[i];
+
+      }
+
+      return
+        -1;
+
+    }
+
+
+    private void add (
+      final String segment
+    ) {
+
+      if ( ( size + 1 ) << 1 > keys.length ) {
+
+        final var previous =
+          keys;
+
+        final var values =
+          ids;
+
+        keys =
+          new String[previous.length << 1];
+
+        ids =
+          new int[previous.length << 1];
+
+        for ( var i = 0; i < previous.length; i++ ) {
+
+          if ( previous[i] != null ) {
+
+            put (
+              previous[i],
+              values[i]
+            );
+
+          }
+
+        }
+
+      }
+
+      put (
+        segment,
+        size++
+      );
+
+    }
+
+
+    private void put (
+      final String segment,
+      final int id
+    ) {
+
+      final var mask =
+        keys.length - 1;
+
+      var i =
+        Node.spread ( segment.hashCode () ) & mask;
+
+      while ( keys[i] != null )
+        i = ( i + 1 ) & mask;
+
+      keys[i] =
+        segment;
+
+      ids[i] =
+        id;
+
+    }
+
+  }
+
+
+  public static final class Decoder {
+
+    private final Names names;
+
+    // the segment values indexed by id, taken from the
+    // interned nodes so that repeats are resolved without decoding
+
+    private String[] segments = new String[CAPACITY];
+    private int      size;
+
+    private Decoder (
+      final Names names
+    ) {
+
+      this.names =
+        names;
+
+    }
+
+
+    public int size () {
+
+      return
+        size;
+
+    }
+
+
+    public Name decode (
+      final ByteBuffer buffer
+    ) {
+
+      final var depth =
+        read (
+          buffer
+        );
+
+      if ( depth <= 0 )
+        throw new IllegalArgumentException ( Integer.toString ( depth ) );
+
+      var node =
+        names.origin;
+
+      for ( var i = 0; i < depth; i++ ) {
+
+        final var code =
+          read (
+            buffer
+          );
+
+        if ( code == 0 ) {
+
+          final var length =
+            read (
+              buffer
+            );
+
+          final var start =
+            buffer.position ();
+
+          if ( length <= 0 || length > buffer.remaining () )
+            throw new IllegalArgumentException ( Integer.toString ( length ) );
+
+          node =
+            node.child (
+              buffer,
+              start,
+              start + length
+            );
+
+          buffer.position (
+            start + length
+          );
+
+          if ( size == segments.length ) {
+
+            segments =
+              copyOf (
+                segments,
+                size << 1
+              );
+
+          }
+
+          segments[size++] =
+            node.value;
+
+        } else if ( code <= size ) {
+
+          node =
+            node.child (
+              segments[code - 1]
+            );
+
+        } else {
+
+          throw
+            new IllegalArgumentException (
+              Integer.toString ( code )
+            );
+
+        }
+
+      }
+
+      return
+        node;
+
+    }
+
+  }
+
+
+  private static int width (
+    final int value
+  ) {
+
+    return
+      ( 31 - Integer.numberOfLeadingZeros ( value | 1 ) ) / 7 + 1;
+
+  }
+
+
+  private static void write (
+    final ByteBuffer buffer,
+    int value
+  ) {
+
+    while ( ( value & ~0x7F ) != 0 ) {
+
+      buffer.put (
+        (byte) ( value & 0x7F | 0x80 )
+      );
+
+      value >>>= 7;
+
+    }
+
+    buffer.put (
+      (byte) value
+    );
+
+  }
+
+
+  private static int read (
+    final ByteBuffer buffer
+  ) {
+
+    var value = 0;
+
+    for ( var shift = 0; shift < 32; shift += 7 ) {
+
+      final var b =
+        buffer.get ();
+
+      value |=
+        ( b & 0x7F ) << shift;
+
+      if ( b >= 0 )
+        return value;
+
+    }
+
+    throw
+      new IllegalArgumentException (
+        "varint"
+      );
+
+  }
+
+}
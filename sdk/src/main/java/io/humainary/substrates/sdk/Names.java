@@ -0,0 +1,565 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Name;
+
+import java.lang.invoke.VarHandle;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.lang.invoke.MethodHandles.arrayElementVarHandle;
+import static java.util.Arrays.copyOf;
+import static java.util.Objects.checkFromToIndex;
+import static java.util.Spliterator.DISTINCT;
+import static java.util.Spliterator.NONNULL;
+
+/**
+ * A concurrent interning trie of {@link Name} instances.
+ * <p>
+ * Resolving the same path within a table always returns the same instance,
+ * so names can be compared with {@code ==} as {@code Environment.override(Name, Object)} does.
+ * Lookups of existing names walk the trie without locking or allocation, and paths can be
+ * resolved from {@link CharSequence} ranges or UTF-8 bytes without first decoding a {@link String}.
+ * <p>
+ * A table created with {@link #weak()} only holds its names weakly: any name that is still
+ * reachable keeps its identity, while unreferenced names are reclaimed and pruned from the trie.
+ * Names are pruned as the table is next used, when a path is resolved or its {@link #size()} or
+ * {@link #reclaimed()} count is read, so a table left idle retains the emptied slots until then.
+ * <p>
+ * Every name is assigned a dense {@code int} id, stable for as long as the name is held by the table,
+ * so that downstream structures can index arrays by name. Ids of reclaimed names are reused.
+ * <p>
+ * The names interned beneath a prefix can be walked with {@link #descendants(Name)}, concurrently
+ * with inserts and without locking.
+ * <p>
+ * Segment values are pooled across the table, so a value repeated beneath many enclosures is held
+ * by one {@link String}. A weak table does not pool values, leaving them reclaimable with their names,
+ * and neither does one created with {@link #unpooled()}.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+public final class Names {
+
+  private static final int       SHIFT = 10;
+  private static final int       CHUNK = 1 << SHIFT;
+  private static final VarHandle AA    = arrayElementVarHandle ( Object[].class );
+
+  // the sentinel whose children are the root names
+  final Node origin;
+
+  // only present when names are weakly referenced, with each reference
+  // registered until polled so that those of a branch reclaimed as a
+  // whole are still enqueued (and counted) rather than collected with it;
+  // the queue is drained whenever a path is resolved or the table sized
+
+  final ReferenceQueue< Node > queue;
+
+  private final Set< Node.Ref > refs;
+
+  // segment values shared across nodes, absent when unpooled or when names
+  // are weakly referenced so that values of reclaimed names are not retained
+
+  private final Segments segments;
+
+  final LongAdder created   = new LongAdder ();
+  final LongAdder reclaimed = new LongAdder ();
+
+  // the reverse id table, grown a chunk at a time by copying the outer
+  // array and then published; slots hold the same entry as the trie
+
+  private volatile Object[][] symbols = new Object[16][];
+
+  private int   next;
+  private int[] free = new int[16];
+  private int   frees;
+
+  private Names (
+    final ReferenceQueue< Node > queue,
+    final boolean pooled
+  ) {
+
+    this.queue =
+      queue;
+
+    this.refs =
+      queue != null
+      ? ConcurrentHashMap.newKeySet ()
+      : null;
+
+    this.segments =
+      pooled
+      ? new Segments ()
+      : null;
+
+    this.origin =
+      new Node (
+        this
+      );
+
+  }
+
+
+  public static Names create () {
+
+    return
+      new Names (
+        null,
+        true
+      );
+
+  }
+
+
+  // a table whose segments are mostly distinct gains nothing from the pool
+
+  public static Names unpooled () {
+
+    return
+      new Names (
+        null,
+        false
+      );
+
+  }
+
+
+  public static Names weak () {
+
+    return
+      new Names (
+        new ReferenceQueue<> (),
+        false
+      );
+
+  }
+
+
+  // the number of names held by the table, which for a weak
+  // table includes those not yet enqueued as reclaimed
+
+  public long size () {
+
+    expunge ();
+
+    return
+      created.sum () - reclaimed.sum ();
+
+  }
+
+
+  // the number of distinct segment values held across all names,
+  // or -1 when segment values are not shared by this table
+
+  public int segments () {
+
+    return
+      segments != null
+      ? segments.size ()
+      : -1;
+
+  }
+
+
+  public int id (
+    final Name name
+  ) {
+
+    return
+      name instanceof Node && ( (Node) name ).names == this
+      ? ( (Node) name ).id
+      : -1;
+
+  }
+
+
+  public Name name (
+    final int id
+  ) {
+
+    final var chunks =
+      symbols;
+
+    final var index =
+      id >>> SHIFT;
+
+    if ( id >= 0 && index < chunks.length && chunks[index] != null ) {
+
+      final var entry =
+        AA.getAcquire (
+          chunks[index],
+          id & CHUNK - 1
+        );
+
+      if ( entry != null ) {
+
+        final var node =
+          Node.node (
+            entry
+          );
+
+        if ( node != null )
+          return node;
+
+      }
+
+    }
+
+    throw
+      new IllegalArgumentException (
+        Integer.toString ( id )
+      );
+
+  }
+
+
+  // a prefix from elsewhere is matched by its segments without
+  // being interned, and has no descendants when it is not present
+
+  public Stream< Name > descendants (
+    final Name prefix
+  ) {
+
+    expunge ();
+
+    final var node =
+      prefix instanceof Node && ( (Node) prefix ).names == this
+      ? (Node) prefix
+      : prefix.< Node > foldTo (
+        name -> origin.find ( name.value () ),
+        ( enclosure, name ) -> enclosure != null ? enclosure.find ( name.value () ) : null
+      );
+
+    if ( node == null )
+      return Stream.empty ();
+
+    return
+      StreamSupport.stream (
+        Spliterators.spliteratorUnknownSize (
+          new Node.Descendants (
+            node
+          ),
+          DISTINCT | NONNULL
+        ),
+        false
+      );
+
+  }
+
+
+  public long reclaimed () {
+
+    expunge ();
+
+    return
+      reclaimed.sum ();
+
+  }
+
+
+  Node.Ref register (
+    final Node node,
+    final Node owner
+  ) {
+
+    // the enclosing node is live, so its slot holds its reference
+
+    final var ref =
+      new Node.Ref (
+        node,
+        owner == origin
+        ? owner
+        : AA.getAcquire ( symbols[owner.id >>> SHIFT], owner.id & CHUNK - 1 ),
+        queue
+      );
+
+    refs.add (
+      ref
+    );
+
+    return
+      ref;
+
+  }
+
+
+  String segment (
+    final String value,
+    final int hash
+  ) {
+
+    return
+      segments != null
+      ? segments.get ( value, hash )
+      : value;
+
+  }
+
+
+  String segment (
+    final CharSequence path,
+    final int start,
+    final int end,
+    final int hash
+  ) {
+
+    return
+      segments != null
+      ? segments.get ( path, start, end, hash )
+      : path.subSequence ( start, end ).toString ();
+
+  }
+
+
+  String segment (
+    final ByteBuffer path,
+    final int start,
+    final int end,
+    final int hash
+  ) {
+
+    return
+      segments != null
+      ? segments.get ( path, start, end, hash )
+      : Node.decode ( path, start, end );
+
+  }
+
+
+  synchronized int allocate () {
+
+    if ( frees > 0 )
+      return free[--frees];
+
+    final var id =
+      next++;
+
+    final var index =
+      id >>> SHIFT;
+
+    var chunks =
+      symbols;
+
+    if ( index == chunks.length || chunks[index] == null ) {
+
+      chunks =
+        copyOf (
+          chunks,
+          Math.max (
+            chunks.length,
+            index + 1 << 1
+          )
+        );
+
+      chunks[index] =
+        new Object[CHUNK];
+
+      symbols =
+        chunks;
+
+    }
+
+    return
+      id;
+
+  }
+
+
+  void bind (
+    final int id,
+    final Object entry
+  ) {
+
+    AA.setRelease (
+      symbols[id >>> SHIFT],
+      id & CHUNK - 1,
+      entry
+    );
+
+  }
+
+
+  private synchronized void release (
+    final int id
+  ) {
+
+    AA.setRelease (
+      symbols[id >>> SHIFT],
+      id & CHUNK - 1,
+      null
+    );
+
+    if ( frees == free.length )
+      free = copyOf ( free, frees << 1 );
+
+    free[frees++] =
+      id;
+
+  }
+
+
+  void expunge () {
+
+    if ( queue != null ) {
+
+      for (
+        Reference< ? extends Node > ref;
+        ( ref = queue.poll () ) != null;
+      ) {
+
+        refs.remove (
+          ref
+        );
+
+        reclaimed.increment ();
+
+        release (
+          ( (Node.Ref) ref ).id
+        );
+
+        // an owner reclaimed with the node is pruned from its own enclosure
+
+        final var owner =
+          Node.node (
+            ( (Node.Ref) ref ).owner
+          );
+
+        if ( owner != null )
+          owner.prune ();
+
+      }
+
+    }
+
+  }
+
+
+  public Name name (
+    final String path
+  ) {
+
+    return
+      origin.parse (
+        path,
+        0,
+        path.length ()
+      );
+
+  }
+
+
+  public Name name (
+    final String first,
+    final String second
+  ) {
+
+    return
+      origin
+        .parse ( first, 0, first.length () )
+        .parse ( second, 0, second.length () );
+
+  }
+
+
+  public Name name (
+    final CharSequence path
+  ) {
+
+    return
+      origin.parse (
+        path,
+        0,
+        path.length ()
+      );
+
+  }
+
+
+  public Name name (
+    final CharSequence path,
+    final int start,
+    final int end
+  ) {
+
+    checkFromToIndex (
+      start,
+      end,
+      path.length ()
+    );
+
+    return
+      origin.parse (
+        path,
+        start,
+        end
+      );
+
+  }
+
+
+  public Name name (
+    final byte[] utf8
+  ) {
+
+    return
+      name (
+        utf8,
+        0,
+        utf8.length
+      );
+
+  }
+
+
+  public Name name (
+    final byte[] utf8,
+    final int start,
+    final int end
+  ) {
+
+    checkFromToIndex (
+      start,
+      end,
+      utf8.length
+    );
+
+    return
+      origin.parse (
+        ByteBuffer.wrap (
+          utf8
+        ),
+        start,
+        end
+      );
+
+  }
+
+
+  // resolves the remaining bytes of the buffer
+  // without changing its position or limit
+
+  public Name name (
+    final ByteBuffer utf8
+  ) {
+
+    return
+      origin.parse (
+        utf8,
+        utf8.position (),
+        utf8.limit ()
+      );
+
+  }
+
+}
@@ -0,0 +1,1908 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Extent;
+import io.humainary.substrates.Substrates.Name;
+
+import java.lang.invoke.VarHandle;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static java.lang.invoke.MethodHandles.arrayElementVarHandle;
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.Arrays.copyOf;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+final class Node
+  implements Name {
+
+  private static final char      SEPARATOR = '.';
+  private static final int       CAPACITY  = 4;
+  private static final int       MEMO      = 8;
+  private static final long      DOTS      = 0x2E2E2E2E2E2E2E2EL;
+  private static final long      LOWS      = 0x7F7F7F7F7F7F7F7FL;
+  private static final VarHandle AA        = arrayElementVarHandle ( Object[].class );
+  private static final VarHandle PATH;
+  private static final VarHandle BYTES;
+  private static final VarHandle CONCATS;
+
+  static {
+
+    try {
+
+      PATH =
+        lookup ()
+          .findVarHandle (
+            Node.class,
+            "path",
+            String.class
+          );
+
+      BYTES =
+        lookup ()
+          .findVarHandle (
+            Node.class,
+            "bytes",
+            byte[].class
+          );
+
+      CONCATS =
+        lookup ()
+          .findVarHandle (
+            Node.class,
+            "concats",
+            Concat[].class
+          );
+
+    } catch (
+      final Exception error
+    ) {
+
+      throw
+        new ExceptionInInitializerError (
+          error
+        );
+
+    }
+
+  }
+
+  final Names  names;
+  final Node   enclosure;
+  final String value;
+  final int    depth;
+  final int    hash;
+  final int    id;
+  final long   stable;
+
+  // the length of the path when encoded as utf-8
+  final int size;
+
+  // a skew-binary skip pointer to an ancestor, giving
+  // logarithmic level-ancestor and common-enclosure walks
+
+  final Node jump;
+
+  private final Optional< Name > optional;
+
+  // lazily rendered and published with release semantics
+  private String path;
+
+  // the utf-8 encoded path, cached on the first write
+  // and published just as the rendered path is
+
+  private byte[] bytes;
+
+  // a small direct-mapped memo of suffixes appended to this
+  // node, allocated on the first concatenation of a name
+
+  private Concat[] concats;
+
+  // readers probe without locking, writers hold the monitor and publish
+  // each slot with release semantics; a slot holds either the child node
+  // or, when the table reclaims names, a weak reference to it
+
+  private volatile Object[] children;
+  private          int      count;
+
+  Node (
+    final Names names
+  ) {
+
+    this.names =
+      names;
+
+    this.enclosure =
+      null;
+
+    this.value =
+      "";
+
+    this.depth =
+      0;
+
+    this.hash =
+      0;
+
+    this.id =
+      -1;
+
+    this.stable =
+      0L;
+
+    this.size =
+      0;
+
+    this.jump =
+      this;
+
+    this.optional =
+      Optional.empty ();
+
+  }
+
+  private Node (
+    final Names names,
+    final Node enclosure,
+    final String value,
+    final int id
+  ) {
+
+    this.names =
+      names;
+
+    this.id =
+      id;
+
+    this.enclosure =
+      enclosure;
+
+    this.value =
+      value;
+
+    this.stable =
+      Name.stableHash (
+        enclosure == null ? 0L : enclosure.stable,
+        value
+      );
+
+    this.size =
+      enclosure == null
+      ? length ( value )
+      : enclosure.size + 1 + length ( value );
+
+    if ( enclosure == null ) {
+
+      this.depth =
+        1;
+
+      this.hash =
+        value.hashCode ();
+
+      this.jump =
+        this;
+
+    } else {
+
+      this.depth =
+        enclosure.depth + 1;
+
+      this.hash =
+        31 * enclosure.hash + value.hashCode ();
+
+      final var skip =
+        enclosure.jump;
+
+      this.jump =
+        enclosure.depth - skip.depth == skip.depth - skip.jump.depth
+        ? skip.jump
+        : enclosure;
+
+    }
+
+    this.optional =
+      Optional.ofNullable (
+        enclosure
+      );
+
+  }
+
+
+  @Override
+  public String value () {
+
+    return
+      value;
+
+  }
+
+
+  @Override
+  public Optional< Name > enclosure () {
+
+    return
+      optional;
+
+  }
+
+
+  @Override
+  public Name name (
+    final String path
+  ) {
+
+    return
+      parse (
+        path,
+        0,
+        path.length ()
+      );
+
+  }
+
+
+  @Override
+  public Name name (
+    final Name path
+  ) {
+
+    return
+      path instanceof Node
+      ? concat ( (Node) path )
+      : Name.super.name ( path );
+
+  }
+
+
+  @Override
+  public Name extremity () {
+
+    return
+      ancestor (
+        1
+      );
+
+  }
+
+
+  @Override
+  public boolean within (
+    final Extent< Name > enclosure
+  ) {
+
+    if ( enclosure instanceof Node ) {
+
+      final var node =
+        (Node) enclosure;
+
+      return
+        node.depth < depth
+        && ancestor ( node.depth ) == node;
+
+    }
+
+    return
+      Name.super.within (
+        enclosure
+      );
+
+  }
+
+
+  @Override
+  public Name commonEnclosure (
+    final Name other
+  ) {
+
+    if ( !( other instanceof Node ) ) {
+
+      return
+        Name.super.commonEnclosure (
+          other
+        );
+
+    }
+
+    final var node =
+      (Node) other;
+
+    var left =
+      depth > node.depth
+      ? ancestor ( node.depth )
+      : this;
+
+    var right =
+      node.depth > depth
+      ? node.ancestor ( depth )
+      : node;
+
+    // both sides share a depth and therefore the
+    // same skip structure, so they can jump in step
+
+    while ( left != right ) {
+
+      if ( left.depth == 1 )
+        return null;
+
+      if ( left.jump != right.jump ) {
+
+        left =
+          left.jump;
+
+        right =
+          right.jump;
+
+      } else {
+
+        left =
+          left.enclosure;
+
+        right =
+          right.enclosure;
+
+      }
+
+    }
+
+    return
+      left;
+
+  }
+
+
+  final Node ancestor (
+    final int level
+  ) {
+
+    var node =
+      this;
+
+    while ( node.depth > level ) {
+
+      node =
+        node.jump.depth >= level
+        ? node.jump
+        : node.enclosure;
+
+    }
+
+    return
+      node;
+
+  }
+
+
+  @Override
+  public int depth () {
+
+    return
+      depth;
+
+  }
+
+
+  @Override
+  public long stableHash () {
+
+    return
+      stable;
+
+  }
+
+
+  @Override
+  public int hashCode () {
+
+    return
+      hash;
+
+  }
+
+
+  @Override
+  public boolean equals (
+    final Object object
+  ) {
+
+    return
+      this == object;
+
+  }
+
+
+  @Override
+  public CharSequence toPath () {
+
+    return
+      toString ();
+
+  }
+
+
+  @Override
+  public String toString () {
+
+    final var result = (String)
+      PATH.getAcquire (
+        this
+      );
+
+    return
+      result != null
+      ? result
+      : render ();
+
+  }
+
+
+  private String render () {
+
+    var length =
+      value.length ();
+
+    for ( var node = enclosure; node != null; node = node.enclosure )
+      length += node.value.length () + 1;
+
+    final var chars =
+      new char[length];
+
+    var node =
+      this;
+
+    do {
+
+      final var end =
+        length;
+
+      length -=
+        node.value.length ();
+
+      node.value.getChars (
+        0,
+        end - length,
+        chars,
+        length
+      );
+
+      if ( ( node = node.enclosure ) != null )
+        chars[--length] = SEPARATOR;
+
+    } while (
+      node != null
+    );
+
+    final var result =
+      new String (
+        chars
+      );
+
+    PATH.setRelease (
+      this,
+      result
+    );
+
+    return
+      result;
+
+  }
+
+
+  @Override
+  public ByteBuffer toPathBuffer () {
+
+    var result = (byte[])
+      BYTES.getAcquire (
+        this
+      );
+
+    if ( result == null ) {
+
+      result =
+        new byte[size];
+
+      encode (
+        ByteBuffer.wrap ( result ),
+        0
+      );
+
+      BYTES.setRelease (
+        this,
+        result
+      );
+
+    }
+
+    return
+      ByteBuffer.wrap (
+        result
+      ).asReadOnlyBuffer ();
+
+  }
+
+
+  @Override
+  public void writeTo (
+    final ByteBuffer buffer
+  ) {
+
+    final var cached = (byte[])
+      BYTES.getAcquire (
+        this
+      );
+
+    if ( cached != null ) {
+
+      buffer.put (
+        cached
+      );
+
+      return;
+
+    }
+
+    if ( buffer.remaining () < size )
+      throw new BufferOverflowException ();
+
+    final var start =
+      buffer.position ();
+
+    encode (
+      buffer,
+      start
+    );
+
+    buffer.position (
+      start + size
+    );
+
+    final var result =
+      new byte[size];
+
+    buffer.get (
+      start,
+      result
+    );
+
+    BYTES.setRelease (
+      this,
+      result
+    );
+
+  }
+
+
+  // writes the path backwards from its end, segment by segment,
+  // until an enclosure with cached bytes is reached and copied
+
+  private void encode (
+    final ByteBuffer buffer,
+    final int start
+  ) {
+
+    var node =
+      this;
+
+    do {
+
+      final var cached = (byte[])
+        BYTES.getAcquire (
+          node
+        );
+
+      if ( cached != null ) {
+
+        buffer.put (
+          start,
+          cached
+        );
+
+        return;
+
+      }
+
+      final var enclosure =
+        node.enclosure;
+
+      final var offset =
+        enclosure == null
+        ? start
+        : start + enclosure.size + 1;
+
+      encode (
+        node.value,
+        buffer,
+        offset
+      );
+
+      if ( enclosure != null )
+        buffer.put ( offset - 1, (byte) SEPARATOR );
+
+      node =
+        enclosure;
+
+    } while (
+      node != null
+    );
+
+  }
+
+
+  final Node parse (
+    final CharSequence path,
+    final int start,
+    final int end
+  ) {
+
+    names.expunge ();
+
+    var node =
+      this;
+
+    var from =
+      start;
+
+    do {
+
+      var to =
+        indexOf (
+          path,
+          from,
+          end
+        );
+
+      if ( to == from )
+        throw new IllegalArgumentException ( path.subSequence ( start, end ).toString () );
+
+      node =
+        node.child (
+          path,
+          from,
+          to
+        );
+
+      from =
+        to + 1;
+
+    } while (
+      from <= end
+    );
+
+    return
+      node;
+
+  }
+
+
+  final Node parse (
+    final ByteBuffer path,
+    final int start,
+    final int end
+  ) {
+
+    names.expunge ();
+
+    var node =
+      this;
+
+    var from =
+      start;
+
+    do {
+
+      final var to =
+        indexOf (
+          path,
+          from,
+          end
+        );
+
+      if ( to == from )
+        throw new IllegalArgumentException ( decode ( path, start, end ) );
+
+      node =
+        node.child (
+          path,
+          from,
+          to
+        );
+
+      from =
+        to + 1;
+
+    } while (
+      from <= end
+    );
+
+    return
+      node;
+
+  }
+
+
+  private Node concat (
+    final Node suffix
+  ) {
+
+    // a memo would hold its results strongly, so tables
+    // that reclaim names always walk the suffix instead
+
+    if ( names.queue != null )
+      return append ( suffix );
+
+    final var memoized =
+      memoized (
+        suffix
+      );
+
+    if ( memoized != null )
+      return memoized;
+
+    var memo = (Concat[])
+      CONCATS.getAcquire (
+        this
+      );
+
+    if ( memo == null ) {
+
+      CONCATS.setRelease (
+        this,
+        memo = new Concat[MEMO]
+      );
+
+    }
+
+    final var result =
+      append (
+        suffix
+      );
+
+    // racing writers may replace each other's entry,
+    // which only costs a repeated walk on a later call
+
+    memo[suffix.hash & MEMO - 1] =
+      new Concat (
+        suffix,
+        result
+      );
+
+    return
+      result;
+
+  }
+
+
+  // the result of appending the suffix if it is still held by the memo
+
+  final Node memoized (
+    final Node suffix
+  ) {
+
+    final var memo = (Concat[])
+      CONCATS.getAcquire (
+        this
+      );
+
+    if ( memo == null )
+      return null;
+
+    final var concat =
+      memo[suffix.hash & MEMO - 1];
+
+    return
+      concat != null && concat.suffix == suffix
+      ? concat.result
+      : null;
+
+  }
+
+
+  private Node append (
+    final Node suffix
+  ) {
+
+    final var nodes =
+      new Node[suffix.depth];
+
+    var node =
+      suffix;
+
+    for ( var i = nodes.length - 1; i >= 0; i-- ) {
+
+      nodes[i] =
+        node;
+
+      node =
+        node.enclosure;
+
+    }
+
+    var result =
+      this;
+
+    for ( final var part : nodes ) {
+
+      result =
+        result.child (
+          part.value
+        );
+
+    }
+
+    return
+      result;
+
+  }
+
+
+  // probes with the hash cached by the string itself
+
+  final Node child (
+    final String segment
+  ) {
+
+    final var hash =
+      spread (
+        segment.hashCode ()
+      );
+
+    final var node =
+      probe (
+        segment,
+        hash
+      );
+
+    return
+      node != null
+      ? node
+      : intern (
+        names.segment (
+          segment,
+          hash
+        ),
+        hash
+      );
+
+  }
+
+
+  // the existing child for a segment, or null without inserting it
+
+  final Node find (
+    final String segment
+  ) {
+
+    return
+      probe (
+        segment,
+        spread (
+          segment.hashCode ()
+        )
+      );
+
+  }
+
+
+  private Node probe (
+    final String segment,
+    final int hash
+  ) {
+
+    final var table =
+      children;
+
+    if ( table != null ) {
+
+      final var mask =
+        table.length - 1;
+
+      for (
+        var i = hash & mask;
+        ;
+        i = ( i + 1 ) & mask
+      ) {
+
+        final var entry =
+          AA.getAcquire (
+            table,
+            i
+          );
+
+        if ( entry == null )
+          break;
+
+        final var node =
+          node (
+            entry
+          );
+
+        if ( node != null && node.segmentHash () == hash && node.value.equals ( segment ) )
+          return node;
+
+      }
+
+    }
+
+    return
+      null;
+
+  }
+
+
+  // resolves a segment held within a char range, only
+  // materializing a string when the node does not yet exist
+
+  private Node child (
+    final CharSequence path,
+    final int start,
+    final int end
+  ) {
+
+    var hash = 0;
+
+    for ( var i = start; i < end; i++ )
+      hash = 31 * hash + path.charAt ( i );
+
+    hash =
+      spread (
+        hash
+      );
+
+    final var table =
+      children;
+
+    if ( table != null ) {
+
+      final var mask =
+        table.length - 1;
+
+      for (
+        var i = hash & mask;
+        ;
+        i = ( i + 1 ) & mask
+      ) {
+
+        final var entry =
+          AA.getAcquire (
+            table,
+            i
+          );
+
+        if ( entry == null )
+          break;
+
+        final var node =
+          node (
+            entry
+          );
+
+        if ( node != null && node.segmentHash () == hash && matches ( node.value, path, start, end ) )
+          return node;
+
+      }
+
+    }
+
+    return
+      intern (
+        names.segment (
+          path,
+          start,
+          end,
+          hash
+        ),
+        hash
+      );
+
+  }
+
+
+  // resolves a segment held within a utf-8 byte range, decoding
+  // code points on the fly so existing nodes are found without a string
+
+  final Node child (
+    final ByteBuffer path,
+    final int start,
+    final int end
+  ) {
+
+    var hash = 0;
+
+    for ( var i = start; i < end; ) {
+
+      final var b =
+        path.get ( i );
+
+      if ( b >= 0 ) {
+
+        hash = 31 * hash + b;
+
+        i++;
+
+      } else {
+
+        final var cp =
+          codePoint (
+            path,
+            i,
+            end
+          );
+
+        if ( cp < 0 ) {
+
+          // malformed input is resolved as the
+          // replacement characters a decoder yields
+
+          return
+            child (
+              decode (
+                path,
+                start,
+                end
+              )
+            );
+
+        }
+
+        hash =
+          Character.isBmpCodePoint ( cp )
+          ? 31 * hash + cp
+          : 31 * ( 31 * hash + Character.highSurrogate ( cp ) ) + Character.lowSurrogate ( cp );
+
+        i += width ( b );
+
+      }
+
+    }
+
+    hash =
+      spread (
+        hash
+      );
+
+    final var table =
+      children;
+
+    if ( table != null ) {
+
+      final var mask =
+        table.length - 1;
+
+      for (
+        var i = hash & mask;
+        ;
+        i = ( i + 1 ) & mask
+      ) {
+
+        final var entry =
+          AA.getAcquire (
+            table,
+            i
+          );
+
+        if ( entry == null )
+          break;
+
+        final var node =
+          node (
+            entry
+          );
+
+        if ( node != null && node.segmentHash () == hash && matches ( node.value, path, start, end ) )
+          return node;
+
+      }
+
+    }
+
+    return
+      intern (
+        names.segment (
+          path,
+          start,
+          end,
+          hash
+        ),
+        hash
+      );
+
+  }
+
+
+  private Node intern (
+    final String segment,
+    final int hash
+  ) {
+
+    // reclaimed entries are pruned before taking
+    // this monitor as pruning locks other nodes
+
+    names.expunge ();
+
+    return
+      insert (
+        segment,
+        hash
+      );
+
+  }
+
+
+  private synchronized Node insert (
+    final String segment,
+    final int hash
+  ) {
+
+    var table =
+      children;
+
+    if ( table == null ) {
+
+      children =
+        table =
+          new Object[CAPACITY];
+
+    }
+
+    var mask =
+      table.length - 1;
+
+    var i =
+      hash & mask;
+
+    for (
+      Object entry;
+      ( entry = table[i] ) != null;
+      i = ( i + 1 ) & mask
+    ) {
+
+      final var node =
+        node (
+          entry
+        );
+
+      if ( node != null && node.segmentHash () == hash && node.value.equals ( segment ) )
+        return node;
+
+    }
+
+    final var node =
+      new Node (
+        names,
+        this == names.origin ? null : this,
+        segment,
+        names.allocate ()
+      );
+
+    final var entry =
+      names.queue == null
+      ? node
+      : names.register ( node, this );
+
+    names.bind (
+      node.id,
+      entry
+    );
+
+    if ( ( count + 1 ) << 1 > table.length ) {
+
+      // rebuild into a fresh table that is only
+      // published once all entries are present
+
+      table =
+        rebuild (
+          table,
+          1
+        );
+
+      mask =
+        table.length - 1;
+
+      i =
+        hash & mask;
+
+      while ( table[i] != null )
+        i = ( i + 1 ) & mask;
+
+      table[i] =
+        entry;
+
+      children =
+        table;
+
+    } else {
+
+      AA.setRelease (
+        table,
+        i,
+        entry
+      );
+
+    }
+
+    count++;
+
+    names.created.increment ();
+
+    return
+      node;
+
+  }
+
+
+  // drops entries whose node has been reclaimed, releasing the table
+  // once a branch has no children left so that the branch itself can go
+
+  final synchronized void prune () {
+
+    final var table =
+      children;
+
+    if ( table == null )
+      return;
+
+    for ( final var entry : table ) {
+
+      if ( entry != null && node ( entry ) == null ) {
+
+        children =
+          rebuild (
+            table,
+            0
+          );
+
+        return;
+
+      }
+
+    }
+
+  }
+
+
+  private Object[] rebuild (
+    final Object[] table,
+    final int extra
+  ) {
+
+    var live = 0;
+
+    for ( final var entry : table ) {
+
+      if ( entry != null && node ( entry ) != null )
+        live++;
+
+    }
+
+    count =
+      live;
+
+    if ( live + extra == 0 )
+      return null;
+
+    var capacity =
+      CAPACITY;
+
+    while ( ( live + extra ) << 1 > capacity )
+      capacity <<= 1;
+
+    final var result =
+      new Object[capacity];
+
+    final var mask =
+      capacity - 1;
+
+    for ( final var entry : table ) {
+
+      if ( entry != null ) {
+
+        final var node =
+          node (
+            entry
+          );
+
+        if ( node != null ) {
+
+          var i =
+            node.segmentHash () & mask;
+
+          while ( result[i] != null )
+            i = ( i + 1 ) & mask;
+
+          result[i] =
+            entry;
+
+        }
+
+      }
+
+    }
+
+    return
+      result;
+
+  }
+
+
+  static Node node (
+    final Object entry
+  ) {
+
+    return
+      entry instanceof Node
+      ? (Node) entry
+      : ( (Ref) entry ).get ();
+
+  }
+
+
+  private int segmentHash () {
+
+    return
+      spread (
+        value.hashCode ()
+      );
+
+  }
+
+
+  private static int indexOf (
+    final CharSequence path,
+    final int start,
+    final int end
+  ) {
+
+    if ( path instanceof String ) {
+
+      final var index =
+        ( (String) path ).indexOf (
+          SEPARATOR,
+          start
+        );
+
+      return
+        index == -1 || index > end
+        ? end
+        : index;
+
+    }
+
+    var index =
+      start;
+
+    while ( index < end && path.charAt ( index ) != SEPARATOR )
+      index++;
+
+    return
+      index;
+
+  }
+
+
+  // scans a word of eight bytes per step, matching the separator in
+  // each lane without carries between them, then the tail byte by byte
+
+  private static int indexOf (
+    final ByteBuffer path,
+    final int start,
+    final int end
+  ) {
+
+    var index =
+      start;
+
+    if ( end - start >= Long.BYTES ) {
+
+      final var little =
+        path.order () == LITTLE_ENDIAN;
+
+      for ( ; index <= end - Long.BYTES; index += Long.BYTES ) {
+
+        final var word =
+          path.getLong ( index ) ^ DOTS;
+
+        final var match =
+          ~( ( word & LOWS ) + LOWS | word | LOWS );
+
+        if ( match != 0 ) {
+
+          return
+            index + ( (
+              little
+              ? Long.numberOfTrailingZeros ( match )
+              : Long.numberOfLeadingZeros ( match )
+            ) >>> 3 );
+
+        }
+
+      }
+
+    }
+
+    while ( index < end && path.get ( index ) != SEPARATOR )
+      index++;
+
+    return
+      index;
+
+  }
+
+
+  static boolean matches (
+    final String value,
+    final CharSequence path,
+    final int start,
+    final int end
+  ) {
+
+    final var length =
+      end - start;
+
+    if ( value.length () != length )
+      return false;
+
+    if ( path instanceof String ) {
+
+      return
+        value.regionMatches (
+          0,
+          (String) path,
+          start,
+          length
+        );
+
+    }
+
+    for ( var i = 0; i < length; i++ ) {
+
+      if ( value.charAt ( i ) != path.charAt ( start + i ) )
+        return false;
+
+    }
+
+    return
+      true;
+
+  }
+
+
+  static boolean matches (
+    final String value,
+    final ByteBuffer path,
+    final int start,
+    final int end
+  ) {
+
+    final var length =
+      value.length ();
+
+    var j = 0;
+
+    for ( var i = start; i < end; ) {
+
+      final var b =
+        path.get ( i );
+
+      if ( b >= 0 ) {
+
+        if ( j == length || value.charAt ( j++ ) != b )
+          return false;
+
+        i++;
+
+      } else {
+
+        final var cp =
+          codePoint (
+            path,
+            i,
+            end
+          );
+
+        if ( Character.isBmpCodePoint ( cp ) ) {
+
+          if ( j == length || value.charAt ( j++ ) != cp )
+            return false;
+
+        } else {
+
+          if ( j + 1 >= length || value.charAt ( j++ ) != Character.highSurrogate ( cp ) || value.charAt ( j++ ) != Character.lowSurrogate ( cp ) )
+            return false;
+
+        }
+
+        i += width ( b );
+
+      }
+
+    }
+
+    return
+      j == length;
+
+  }
+
+
+  private static int width (
+    final byte lead
+  ) {
+
+    return
+      ( lead & 0xE0 ) == 0xC0
+      ? 2
+      : ( lead & 0xF0 ) == 0xE0 ? 3 : 4;
+
+  }
+
+
+  // decodes a multibyte utf-8 sequence, returning -1 for anything
+  // the platform decoder would replace (overlong, surrogate, truncated)
+
+  private static int codePoint (
+    final ByteBuffer path,
+    final int index,
+    final int end
+  ) {
+
+    final var lead =
+      path.get ( index ) & 0xFF;
+
+    final int width;
+    final int min;
+
+    int cp;
+
+    if ( ( lead & 0xE0 ) == 0xC0 ) {
+      width = 2;
+      min = 0x80;
+      cp = lead & 0x1F;
+    } else if ( ( lead & 0xF0 ) == 0xE0 ) {
+      width = 3;
+      min = 0x800;
+      cp = lead & 0x0F;
+    } else if ( ( lead & 0xF8 ) == 0xF0 ) {
+      width = 4;
+      min = 0x10000;
+      cp = lead & 0x07;
+    } else {
+      return -1;
+    }
+
+    if ( index + width > end )
+      return -1;
+
+    for ( var i = 1; i < width; i++ ) {
+
+      final var b =
+        path.get ( index + i );
+
+      if ( ( b & 0xC0 ) != 0x80 )
+        return -1;
+
+      cp = ( cp << 6 ) | ( b & 0x3F );
+
+    }
+
+    return
+      cp < min || cp > Character.MAX_CODE_POINT || Character.isSurrogate ( (char) cp ) && cp <= 0xFFFF
+      ? -1
+      : cp;
+
+  }
+
+
+  static String decode (
+    final ByteBuffer path,
+    final int start,
+    final int end
+  ) {
+
+    return
+      UTF_8.decode (
+        path
+          .duplicate ()
+          .limit ( end )
+          .position ( start )
+      ).toString ();
+
+  }
+
+
+  // the utf-8 length of a value, with an unpaired
+  // surrogate encoded as '?' just as String.getBytes does
+
+  private static int length (
+    final String value
+  ) {
+
+    final var chars =
+      value.length ();
+
+    var length =
+      chars;
+
+    for ( var i = 0; i < chars; i++ ) {
+
+      final var c =
+        value.charAt ( i );
+
+      if ( c >= 0x80 ) {
+
+        if ( c < 0x800 ) {
+
+          length += 1;
+
+        } else if ( Character.isHighSurrogate ( c ) && i + 1 < chars && Character.isLowSurrogate ( value.charAt ( i + 1 ) ) ) {
+
+          length += 2;
+
+          i++;
+
+        } else if ( !Character.isSurrogate ( c ) ) {
+
+          length += 2;
+
+        }
+
+      }
+
+    }
+
+    return
+      length;
+
+  }
+
+
+  private static void encode (
+    final String value,
+    final ByteBuffer buffer,
+    final int start
+  ) {
+
+    final var chars =
+      value.length ();
+
+    var index =
+      start;
+
+    for ( var i = 0; i < chars; i++ ) {
+
+      final var c =
+        value.charAt ( i );
+
+      if ( c < 0x80 ) {
+
+        buffer.put ( index++, (byte) c );
+
+      } else if ( c < 0x800 ) {
+
+        buffer.put ( index++, (byte) ( 0xC0 | c >> 6 ) );
+        buffer.put ( index++, (byte) ( 0x80 | c & 0x3F ) );
+
+      } else if ( Character.isHighSurrogate ( c ) && i + 1 < chars && Character.isLowSurrogate ( value.charAt ( i + 1 ) ) ) {
+
+        final var cp =
+          Character.toCodePoint (
+            c,
+            value.charAt ( ++i )
+          );
+
+        buffer.put ( index++, (byte) ( 0xF0 | cp >> 18 ) );
+        buffer.put ( index++, (byte) ( 0x80 | cp >> 12 & 0x3F ) );
+        buffer.put ( index++, (byte) ( 0x80 | cp >> 6 & 0x3F ) );
+        buffer.put ( index++, (byte) ( 0x80 | cp & 0x3F ) );
+
+      } else if ( Character.isSurrogate ( c ) ) {
+
+        buffer.put ( index++, (byte) '?' );
+
+      } else {
+
+        buffer.put ( index++, (byte) ( 0xE0 | c >> 12 ) );
+        buffer.put ( index++, (byte) ( 0x80 | c >> 6 & 0x3F ) );
+        buffer.put ( index++, (byte) ( 0x80 | c & 0x3F ) );
+
+      }
+
+    }
+
+  }
+
+
+  static int spread (
+    final int hash
+  ) {
+
+    return
+      hash ^ ( hash >>> 16 );
+
+  }
+
+
+  // a depth-first walk over the child tables beneath a node that reads
+  // them as inserts do, so it sees every name present when it started
+  // that is still held, and possibly some interned while it runs
+
+  static final class Descendants
+    implements Iterator< Name > {
+
+    private Object[][] tables = new Object[8][];
+    private int[]      indices = new int[8];
+    private int        top;
+    private Node       next;
+
+    Descendants (
+      final Node node
+    ) {
+
+      push (
+        node.children
+      );
+
+    }
+
+
+    @Override
+    public boolean hasNext () {
+
+      while ( next == null && top > 0 ) {
+
+        final var table =
+          tables[top - 1];
+
+        final var index =
+          indices[top - 1];
+
+        if ( index == table.length ) {
+
+          tables[--top] =
+            null;
+
+          continue;
+
+        }
+
+        indices[top - 1] =
+          index + 1;
+
+        final var entry =
+          AA.getAcquire (
+            table,
+            index
+          );
+
+        if ( entry != null ) {
+
+          next =
+            node (
+              entry
+            );
+
+        }
+
+      }
+
+      return
+        next != null;
+
+    }
+
+
+    @Override
+    public Name next () {
+
+      if ( !hasNext () )
+        throw new NoSuchElementException ();
+
+      final var node =
+        next;
+
+      next =
+        null;
+
+      push (
+        node.children
+      );
+
+      return
+        node;
+
+    }
+
+
+    private void push (
+      final Object[] table
+    ) {
+
+      if ( table == null )
+        return;
+
+      if ( top == tables.length ) {
+
+        tables =
+          copyOf (
+            tables,
+            top << 1
+          );
+
+        indices =
+          copyOf (
+            indices,
+            top << 1
+          );
+
+      }
+
+      tables[top] =
+        table;
+
+      indices[top++] =
+        0;
+
+    }
+
+  }
+
+
+  private static final class Concat {
+
+    final Node suffix;
+    final Node result;
+
+    Concat (
+      final Node suffix,
+      final Node result
+    ) {
+
+      this.suffix =
+        suffix;
+
+      this.result =
+        result;
+
+    }
+
+  }
+
+
+  // the owner is the origin for a root name, else the reference to the
+  // enclosing node, so that holding it does not keep that node reachable
+  // and a branch dropped as a whole is reclaimed in a single collection
+
+  static final class Ref
+    extends WeakReference< Node > {
+
+    final Object owner;
+    final int    id;
+
+    Ref (
+      final Node node,
+      final Object owner,
+      final ReferenceQueue< Node > queue
+    ) {
+
+      super (
+        node,
+        queue
+      );
+
+      this.owner =
+        owner;
+
+      this.id =
+        node.id;
+
+    }
+
+  }
+
+}
@@ -0,0 +1,450 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Name;
+import io.humainary.substrates.Substrates.Subscription;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * An {@link Environment} over a properties file that is reloaded when the file changes.
+ * <p>
+ * The directory of the file is watched by a daemon thread, which reads the file in full and parses it
+ * into a new immutable {@link MappedEnvironment} off the lookup path. The parsed snapshot and its
+ * version are published together with a single release write, so a lookup costs one acquire read
+ * before being delegated to the current snapshot. The file is reread once its directory has been
+ * quiet for a moment, and the version is incremented only when its content has changed. A file that
+ * cannot be read leaves the current snapshot in place.
+ * <p>
+ * Once a new snapshot has been published, the {@link #onChange(Consumer) listeners} are called on the
+ * watching thread with the name of each key that was added, removed or given another value. A listener
+ * that fails does not keep the others, or the remaining keys, from being notified.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+public final class ReloadingEnvironment
+  implements Environment, Closeable {
+
+  private static final long      SETTLE = 50L;
+  private static final VarHandle SNAPSHOT;
+
+  static {
+
+    try {
+
+      SNAPSHOT =
+        lookup ()
+          .findVarHandle (
+            ReloadingEnvironment.class,
+            "snapshot",
+            Snapshot.class
+          );
+
+    } catch (
+      final Exception error
+    ) {
+
+      throw
+        new ExceptionInInitializerError (
+          error
+        );
+
+    }
+
+  }
+
+  private final Path                                           file;
+  private final WatchService                                   watcher;
+  private final Function< ? super String, ? extends Name >     parser;
+  private final CopyOnWriteArrayList< Consumer< ? super Name > > listeners;
+
+  private Snapshot snapshot;
+
+  private ReloadingEnvironment (
+    final Path file,
+    final WatchService watcher,
+    final Function< ? super String, ? extends Name > parser,
+    final Snapshot snapshot
+  ) {
+
+    this.file =
+      file;
+
+    this.watcher =
+      watcher;
+
+    this.parser =
+      parser;
+
+    this.listeners =
+      new CopyOnWriteArrayList<> ();
+
+    this.snapshot =
+      snapshot;
+
+  }
+
+
+  // the parser creates the names of changed keys passed to listeners; as
+  // names are matched by identity, it must be the one lookups get names from
+
+  public static ReloadingEnvironment watch (
+    final Path path,
+    final Function< ? super String, ? extends Name > parser
+  ) throws IOException {
+
+    requireNonNull (
+      parser
+    );
+
+    final var file =
+      path.toAbsolutePath ();
+
+    final var directory =
+      file.getParent ();
+
+    final var watcher =
+      directory.getFileSystem ()
+        .newWatchService ();
+
+    try {
+
+      directory.register (
+        watcher,
+        ENTRY_CREATE,
+        ENTRY_MODIFY
+      );
+
+      final var environment =
+        new ReloadingEnvironment (
+          file,
+          watcher,
+          parser,
+          new Snapshot (
+            Files.readAllBytes ( file ),
+            0L
+          )
+        );
+
+      final var thread =
+        new Thread (
+          environment::run,
+          "substrates-reload-" + file.getFileName ()
+        );
+
+      thread.setDaemon (
+        true
+      );
+
+      thread.start ();
+
+      return
+        environment;
+
+    } catch (
+      final IOException | RuntimeException error
+    ) {
+
+      watcher.close ();
+
+      throw
+        error;
+
+    }
+
+  }
+
+
+  // the number of times the content of the file has changed since it was first read
+
+  @Override
+  public long version () {
+
+    return
+      ( (Snapshot) SNAPSHOT.getAcquire ( this ) ).version;
+
+  }
+
+
+  public Environment snapshot () {
+
+    return
+      ( (Snapshot) SNAPSHOT.getAcquire ( this ) ).environment;
+
+  }
+
+
+  @Override
+  public Object get (
+    final Name name,
+    final Object defVal
+  ) {
+
+    return
+      ( (Snapshot) SNAPSHOT.getAcquire ( this ) ).environment.get (
+        name,
+        defVal
+      );
+
+  }
+
+
+  // rereads the file, publishing a new snapshot if its content has changed;
+  // every listener is told of every changed key before the first failure
+  // of the parser or of a listener is rethrown, with the others suppressed
+
+  public synchronized void reload ()
+  throws IOException {
+
+    final var bytes =
+      Files.readAllBytes (
+        file
+      );
+
+    final var current =
+      (Snapshot) SNAPSHOT.getAcquire ( this );
+
+    if ( Arrays.equals ( bytes, current.bytes ) )
+      return;
+
+    final var next =
+      new Snapshot (
+        bytes,
+        current.version + 1
+      );
+
+    SNAPSHOT.setRelease (
+      this,
+      next
+    );
+
+    if ( !listeners.isEmpty () ) {
+
+      final var failures =
+        new ArrayList< RuntimeException > ();
+
+      next.environment.changes (
+        current.environment,
+        key ->
+          changed (
+            key,
+            failures
+          )
+      );
+
+      if ( !failures.isEmpty () ) {
+
+        final var failure =
+          failures.get ( 0 );
+
+        for ( var i = 1; i < failures.size (); i++ )
+          failure.addSuppressed ( failures.get ( i ) );
+
+        throw
+          failure;
+
+      }
+
+    }
+
+  }
+
+
+  private void changed (
+    final String key,
+    final List< RuntimeException > failures
+  ) {
+
+    final Name name;
+
+    try {
+
+      name =
+        parser.apply (
+          key
+        );
+
+    } catch (
+      final IllegalArgumentException ignored
+    ) {
+
+      // a key that is not a valid name cannot be looked up
+
+      return;
+
+    } catch (
+      final RuntimeException error
+    ) {
+
+      failures.add (
+        error
+      );
+
+      return;
+
+    }
+
+    for ( final var listener : listeners ) {
+
+      try {
+
+        listener.accept (
+          name
+        );
+
+      } catch (
+        final RuntimeException error
+      ) {
+
+        failures.add (
+          error
+        );
+
+      }
+
+    }
+
+  }
+
+
+  @Override
+  public Subscription onChange (
+    final Consumer< ? super Name > listener
+  ) {
+
+    listeners.add (
+      requireNonNull (
+        listener
+      )
+    );
+
+    return
+      () ->
+        listeners.remove (
+          listener
+        );
+
+  }
+
+
+  @Override
+  public void close ()
+  throws IOException {
+
+    watcher.close ();
+
+  }
+
+
+  private void run () {
+
+    try {
+
+      for ( ; ; ) {
+
+        var changed = false;
+
+        // events are drained until the directory has been quiet for
+        // a moment, so that a file being written is read once, whole
+
+        for (
+          var key = watcher.take ();
+          key != null;
+          key = watcher.poll ( SETTLE, MILLISECONDS )
+        ) {
+
+          for ( final var event : key.pollEvents () ) {
+
+            changed |=
+              event.kind () == OVERFLOW || file.getFileName ().equals ( event.context () );
+
+          }
+
+          key.reset ();
+
+        }
+
+        if ( changed ) {
+
+          try {
+
+            reload ();
+
+          } catch (
+            final IOException | RuntimeException ignored
+          ) {
+
+            // the file is being replaced or was removed, so the current
+            // snapshot is kept until the next change, and a failing
+            // listener must not stop the watching of the file
+
+          }
+
+        }
+
+      }
+
+    } catch (
+      final InterruptedException | ClosedWatchServiceException ignored
+    ) {
+
+      // closed
+
+    }
+
+  }
+
+
+  private static final class Snapshot {
+
+    final byte[]            bytes;
+    final long              version;
+    final MappedEnvironment environment;
+
+    Snapshot (
+      final byte[] bytes,
+      final long version
+    ) {
+
+      this.bytes =
+        bytes;
+
+      this.version =
+        version;
+
+      this.environment =
+        MappedEnvironment.of (
+          ByteBuffer.wrap ( bytes )
+        );
+
+    }
+
+  }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+
+import static java.lang.invoke.MethodHandles.arrayElementVarHandle;
+
+// a pool of segment values shared by all the nodes of a table, so that
+// a value repeated under many enclosures is held (and hashed) just once,
+// and resolving a pooled value from a range does not materialize a string
+
+final class Segments {
+
+  private static final int       CAPACITY = 64;
+  private static final VarHandle AA       = arrayElementVarHandle ( String[].class );
+
+  // readers probe without locking, writers hold the monitor
+  // and either publish a slot or a rebuilt table
+
+  private volatile String[] table = new String[CAPACITY];
+  private          int      count;
+
+  String get (
+    final String value,
+    final int hash
+  ) {
+
+    final var table =
+      this.table;
+
+    final var mask =
+      table.length - 1;
+
+    for (
+      var i = hash & mask;
+      ;
+      i = ( i + 1 ) & mask
+    ) {
+
+      final var segment =
+        (String) AA.getAcquire (
+          table,
+          i
+        );
+
+      if ( segment == null )
+        return intern ( value, hash );
+
+      if ( Node.spread ( segment.hashCode () ) == hash && segment.equals ( value ) )
+        return segment;
+
+    }
+
+  }
+
+
+  String get (
+    final CharSequence path,
+    final int start,
+    final int end,
+    final int hash
+  ) {
+
+    final var table =
+      this.table;
+
+    final var mask =
+      table.length - 1;
+
+    for (
+      var i = hash & mask;
+      ;
+      i = ( i + 1 ) & mask
+    ) {
+
+      final var segment =
+        (String) AA.getAcquire (
+          table,
+          i
+        );
+
+      if ( segment == null )
+        return intern ( path.subSequence ( start, end ).toString (), hash );
+
+      if ( Node.spread ( segment.hashCode () ) == hash && Node.matches ( segment, path, start, end ) )
+        return segment;
+
+    }
+
+  }
+
+
+  String get (
+    final ByteBuffer path,
+    final int start,
+    final int end,
+    final int hash
+  ) {
+
+    final var table =
+      this.table;
+
+    final var mask =
+      table.length - 1;
+
+    for (
+      var i = hash & mask;
+      ;
+      i = ( i + 1 ) & mask
+    ) {
+
+      final var segment =
+        (String) AA.getAcquire (
+          table,
+          i
+        );
+
+      if ( segment == null )
+        return intern ( Node.decode ( path, start, end ), hash );
+
+      if ( Node.spread ( segment.hashCode () ) == hash && Node.matches ( segment, path, start, end ) )
+        return segment;
+
+    }
+
+  }
+
+
+  synchronized int size () {
+
+    return
+      count;
+
+  }
+
+
+  private synchronized String intern (
+    final String value,
+    final int hash
+  ) {
+
+    var table =
+      this.table;
+
+    var mask =
+      table.length - 1;
+
+    var i =
+      hash & mask;
+
+    for (
+      String segment;
+      ( segment = table[i] ) != null;
+      i = ( i + 1 ) & mask
+    ) {
+
+      if ( segment.equals ( value ) )
+        return segment;
+
+    }
+
+    if ( ( count + 1 ) << 1 > table.length ) {
+
+      // rebuild into a fresh table that is only
+      // published once all entries are present
+
+      final var result =
+        new String[table.length << 1];
+
+      mask =
+        result.length - 1;
+
+      for ( final var segment : table ) {
+
+        if ( segment != null ) {
+
+          var j =
+            Node.spread ( segment.hashCode () ) & mask;
+
+          while ( result[j] != null )
+            j = ( j + 1 ) & mask;
+
+          result[j] =
+            segment;
+
+        }
+
+      }
+
+      i =
+        hash & mask;
+
+      while ( result[i] != null )
+        i = ( i + 1 ) & mask;
+
+      result[i] =
+        value;
+
+      this.table =
+        result;
+
+    } else {
+
+      AA.setRelease (
+        table,
+        i,
+        value
+      );
+
+    }
+
+    count++;
+
+    return
+      value;
+
+  }
+
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Name;
+
+import java.util.Map;
+
+import static java.util.Arrays.copyOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An immutable {@link Environment} holding a fixed set of name value mappings.
+ * <p>
+ * The mappings are held in a flat open-addressing table matched by name identity, as
+ * {@code Environment.override(Name, Object)} does. Names interned by {@link Names} are placed by
+ * their dense id, all others by identity hash, so a lookup is a single probe sequence that neither
+ * boxes nor allocates. A {@code null} value is treated as an absent mapping.
+ * <p>
+ * Boxed primitive values are also held unboxed in a parallel slot, which the primitive
+ * getters read directly rather than unboxing the value mapped.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+public final class SnapshotEnvironment
+  implements Environment {
+
+  private static final byte OTHER   = 0;
+  private static final byte LONG    = 1;
+  private static final byte INTEGER = 2;
+  private static final byte DOUBLE  = 3;
+  private static final byte FLOAT   = 4;
+  private static final byte BOOLEAN = 5;
+
+  private final Name[]   names;
+  private final Object[] values;
+  private final byte[]   kinds;
+  private final long[]   bits;
+  private final int      size;
+
+  private SnapshotEnvironment (
+    final Name[] names,
+    final Object[] values,
+    final int size
+  ) {
+
+    var capacity = 2;
+
+    while ( capacity < size << 1 )
+      capacity <<= 1;
+
+    this.names =
+      new Name[capacity];
+
+    this.values =
+      new Object[capacity];
+
+    this.kinds =
+      new byte[capacity];
+
+    this.bits =
+      new long[capacity];
+
+    final var mask =
+      capacity - 1;
+
+    var count = 0;
+
+    for ( var i = 0; i < size; i++ ) {
+
+      final var name =
+        names[i];
+
+      var j =
+        index ( name ) & mask;
+
+      while ( this.names[j] != null && this.names[j] != name )
+        j = ( j + 1 ) & mask;
+
+      // a later mapping of the same name replaces the earlier
+
+      if ( this.names[j] == null ) {
+
+        this.names[j] =
+          name;
+
+        count++;
+
+      }
+
+      this.values[j] =
+        values[i];
+
+      unbox (
+        j,
+        values[i]
+      );
+
+    }
+
+    this.size =
+      count;
+
+  }
+
+
+  private void unbox (
+    final int slot,
+    final Object value
+  ) {
+
+    if ( value instanceof Long ) {
+
+      kinds[slot] =
+        LONG;
+
+      bits[slot] =
+        (Long) value;
+
+    } else if ( value instanceof Integer ) {
+
+      kinds[slot] =
+        INTEGER;
+
+      bits[slot] =
+        (Integer) value;
+
+    } else if ( value instanceof Double ) {
+
+      kinds[slot] =
+        DOUBLE;
+
+      bits[slot] =
+        Double.doubleToRawLongBits ( (Double) value );
+
+    } else if ( value instanceof Float ) {
+
+      kinds[slot] =
+        FLOAT;
+
+      bits[slot] =
+        Float.floatToRawIntBits ( (Float) value );
+
+    } else if ( value instanceof Boolean ) {
+
+      kinds[slot] =
+        BOOLEAN;
+
+      bits[slot] =
+        (Boolean) value ? 1L : 0L;
+
+    } else {
+
+      kinds[slot] =
+        OTHER;
+
+    }
+
+  }
+
+
+  public static SnapshotEnvironment of (
+    final Map< Name, ? > map
+  ) {
+
+    final var builder =
+      builder ();
+
+    map.forEach (
+      builder::put
+    );
+
+    return
+      builder.build ();
+
+  }
+
+
+  public static Builder builder () {
+
+    return
+      new Builder ();
+
+  }
+
+
+  public int size () {
+
+    return
+      size;
+
+  }
+
+
+  @Override
+  public Object get (
+    final Name name,
+    final Object defVal
+  ) {
+
+    final var slot =
+      slot (
+        name
+      );
+
+    return
+      slot >= 0
+      ? values[slot]
+      : defVal;
+
+  }
+
+
+  @Override
+  public long getLong (
+    final Name name,
+    final long defValue
+  ) {
+
+    final var slot =
+      slot (
+        name
+      );
+
+    return
+      slot < 0
+      ? defValue
+      : kinds[slot] == LONG
+        ? bits[slot]
+        : values[slot] instanceof String
+          ? Long.parseLong ( (String) values[slot] )
+          : defValue;
+
+  }
+
+
+  @Override
+  public int getInteger (
+    final Name name,
+    final int defValue
+  ) {
+
+    final var slot =
+      slot (
+        name
+      );
+
+    return
+      slot < 0
+      ? defValue
+      : kinds[slot] == INTEGER
+        ? (int) bits[slot]
+        : values[slot] instanceof String
+          ? Integer.parseInt ( (String) values[slot] )
+          : defValue;
+
+  }
+
+
+  @Override
+  public double getDouble (
+    final Name name,
+    final double defValue
+  ) {
+
+    final var slot =
+      slot (
+        name
+      );
+
+    return
+      slot < 0
+      ? defValue
+      : kinds[slot] == DOUBLE
+        ? Double.longBitsToDouble ( bits[slot] )
+        : values[slot] instanceof String
+          ? Double.parseDouble ( (String) values[slot] )
+          : defValue;
+
+  }
+
+
+  @Override
+  public float getFloat (
+    final Name name,
+    final float defValue
+  ) {
+
+    final var slot =
+      slot (
+        name
+      );
+
+    return
+      slot < 0
+      ? defValue
+      : kinds[slot] == FLOAT
+        ? Float.intBitsToFloat ( (int) bits[slot] )
+        : values[slot] instanceof String
+          ? Float.parseFloat ( (String) values[slot] )
+          : defValue;
+
+  }
+
+
+  @Override
+  public boolean getBoolean (
+    final Name name,
+    final boolean defValue
+  ) {
+
+    final var slot =
+      slot (
+        name
+      );
+
+    return
+      slot < 0
+      ? defValue
+      : kinds[slot] == BOOLEAN
+        ? bits[slot] != 0L
+        : values[slot] instanceof String
+          ? Boolean.parseBoolean ( (String) values[slot] )
+          : defValue;
+
+  }
+
+
+  private int slot (
+    final Name name
+  ) {
+
+    final var mask =
+      names.length - 1;
+
+    for (
+      var i = index ( name ) & mask;
+      ;
+      i = ( i + 1 ) & mask
+    ) {
+
+      final var current =
+        names[i];
+
+      if ( current == name )
+        return i;
+
+      if ( current == null )
+        return -1;
+
+    }
+
+  }
+
+
+  private static int index (
+    final Name name
+  ) {
+
+    if ( name instanceof Node )
+      return ( (Node) name ).id;
+
+    final var hash =
+      System.identityHashCode (
+        name
+      );
+
+    return
+      hash ^ ( hash >>> 16 );
+
+  }
+
+
+  public static final class Builder {
+
+    private Name[]   names  = new Name[8];
+    private Object[] values = new Object[8];
+    private int      size;
+
+    private Builder () {}
+
+
+    public Builder put (
+      final Name name,
+      final Object value
+    ) {
+
+      requireNonNull (
+        name
+      );
+
+      if ( value == null )
+        return this;
+
+      if ( size == names.length ) {
+
+        names =
+          copyOf (
+            names,
+            size << 1
+          );
+
+        values =
+          copyOf (
+            values,
+            size << 1
+          );
+
+      }
+
+      names[size] =
+        name;
+
+      values[size++] =
+        value;
+
+      return
+        this;
+
+    }
+
+
+    public SnapshotEnvironment build () {
+
+      return
+        new SnapshotEnvironment (
+          names,
+          values,
+          size
+        );
+
+    }
+
+  }
+
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import java.lang.invoke.VarHandle;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static java.lang.invoke.MethodHandles.lookup;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Suppliers that cache the values of another, for use with {@code Environment.override(Name, Supplier)}
+ * and {@code SubstratesProvider.environment(Name, Supplier)} when a value is costly to obtain.
+ * <p>
+ * A {@link #once(Supplier) once} supplier calls the supplier on its first use only. A
+ * {@link #refreshing(Supplier, Duration) refreshing} supplier calls it on its first use and again,
+ * on a shared daemon thread, when a value older than its time to live is read; the previous value is
+ * returned until the new one is published, and kept if the supplier fails. A {@code null} value is
+ * cached like any other.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+public final class Suppliers {
+
+  private Suppliers () {}
+
+
+  public static < T > Supplier< T > once (
+    final Supplier< ? extends T > supplier
+  ) {
+
+    return
+      new Once<> (
+        requireNonNull (
+          supplier
+        )
+      );
+
+  }
+
+
+  public static < T > Supplier< T > refreshing (
+    final Supplier< ? extends T > supplier,
+    final Duration ttl
+  ) {
+
+    requireNonNull (
+      supplier
+    );
+
+    if ( ttl.isNegative () || ttl.isZero () )
+      throw new IllegalArgumentException ( ttl.toString () );
+
+    return
+      new Refreshing<> (
+        supplier,
+        ttl.toNanos ()
+      );
+
+  }
+
+
+  private static VarHandle handle (
+    final Class< ? > type,
+    final String field,
+    final Class< ? > value
+  ) {
+
+    try {
+
+      return
+        lookup ()
+          .findVarHandle (
+            type,
+            field,
+            value
+          );
+
+    } catch (
+      final Exception error
+    ) {
+
+      throw
+        new ExceptionInInitializerError (
+          error
+        );
+
+    }
+
+  }
+
+
+  // a value, with the time at which it expires when refreshing
+
+  private static final class Value {
+
+    final Object value;
+    final long   expires;
+
+    Value (
+      final Object value,
+      final long expires
+    ) {
+
+      this.value =
+        value;
+
+      this.expires =
+        expires;
+
+    }
+
+  }
+
+
+  private static final class Once< T >
+    implements Supplier< T > {
+
+    private static final VarHandle V = handle ( Once.class, "value", Value.class );
+
+    private final Supplier< ? extends T > supplier;
+
+    private Value value;
+
+    Once (
+      final Supplier< ? extends T > supplier
+    ) {
+
+      this.supplier =
+        supplier;
+
+    }
+
+
+    @Override
+    public T get () {
+
+      final var current = (Value)
+        V.getAcquire (
+          this
+        );
+
+      //noinspection unchecked
+      return
+        current != null
+        ? (T) current.value
+        : supply ();
+
+    }
+
+
+    // racing first callers wait for the one call rather than making their own
+
+    private synchronized T supply () {
+
+      var current = (Value)
+        V.getAcquire (
+          this
+        );
+
+      if ( current == null ) {
+
+        current =
+          new Value (
+            supplier.get (),
+            0L
+          );
+
+        V.setRelease (
+          this,
+          current
+        );
+
+      }
+
+      //noinspection unchecked
+      return
+        (T) current.value;
+
+    }
+
+  }
+
+
+  private static final class Refreshing< T >
+    implements Supplier< T > {
+
+    private static final VarHandle V          = handle ( Refreshing.class, "value", Value.class );
+    private static final VarHandle REFRESHING = handle ( Refreshing.class, "refreshing", boolean.class );
+
+    private final Supplier< ? extends T > supplier;
+    private final long                    ttl;
+
+    private Value   value;
+    private boolean refreshing;
+
+    Refreshing (
+      final Supplier< ? extends T > supplier,
+      final long ttl
+    ) {
+
+      this.supplier =
+        supplier;
+
+      this.ttl =
+        ttl;
+
+    }
+
+
+    @Override
+    public T get () {
+
+      final var current = (Value)
+        V.getAcquire (
+          this
+        );
+
+      if ( current == null )
+        return supply ();
+
+      // only the caller that claims the refresh submits it
+
+      if ( System.nanoTime () - current.expires >= 0L && REFRESHING.compareAndSet ( this, false, true ) ) {
+
+        try {
+
+          Scheduler.EXECUTOR.execute (
+            this::refresh
+          );
+
+        } catch (
+          final RuntimeException error
+        ) {
+
+          REFRESHING.setRelease (
+            this,
+            false
+          );
+
+        }
+
+      }
+
+      //noinspection unchecked
+      return
+        (T) current.value;
+
+    }
+
+
+    private synchronized T supply () {
+
+      var current = (Value)
+        V.getAcquire (
+          this
+        );
+
+      if ( current == null ) {
+
+        current =
+          new Value (
+            supplier.get (),
+            System.nanoTime () + ttl
+          );
+
+        V.setRelease (
+          this,
+          current
+        );
+
+      }
+
+      //noinspection unchecked
+      return
+        (T) current.value;
+
+    }
+
+
+    // a failing supplier leaves the previous value in place
+    // for another period rather than being retried on every read
+
+    private void refresh () {
+
+      try {
+
+        final var previous = (Value)
+          V.getAcquire (
+            this
+          );
+
+        Object result;
+
+        try {
+
+          result =
+            supplier.get ();
+
+        } catch (
+          final RuntimeException error
+        ) {
+
+          result =
+            previous.value;
+
+        }
+
+        V.setRelease (
+          this,
+          new Value (
+            result,
+            System.nanoTime () + ttl
+          )
+        );
+
+      } finally {
+
+        REFRESHING.setRelease (
+          this,
+          false
+        );
+
+      }
+
+    }
+
+  }
+
+
+  // the thread shared by all refreshing suppliers, started on first use
+
+  private static final class Scheduler {
+
+    static final ExecutorService EXECUTOR =
+      Executors.newSingleThreadExecutor (
+        runnable -> {
+
+          final var thread =
+            new Thread (
+              runnable,
+              "substrates-refresh"
+            );
+
+          thread.setDaemon (
+            true
+          );
+
+          return
+            thread;
+
+        }
+      );
+
+  }
+
+}
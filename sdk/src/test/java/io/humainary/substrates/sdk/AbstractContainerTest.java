@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Container;
+import io.humainary.substrates.Substrates.Name;
+import io.humainary.substrates.Substrates.Referent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static io.humainary.substrates.Substrates.Environment.EMPTY;
+import static java.util.Spliterator.SIZED;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the {@link AbstractContainer} spliterator.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class AbstractContainerTest {
+
+  private static final int COUNT = 1_000;
+
+  private static Map< Name, Referent > referents () {
+
+    final var names =
+      Names.create ();
+
+    final var map =
+      new HashMap< Name, Referent > ();
+
+    for ( var i = 0; i < COUNT; i++ ) {
+
+      final Referent referent =
+        () -> null;
+
+      map.put (
+        names.name ( "referent" + i ),
+        referent
+      );
+
+    }
+
+    return
+      map;
+
+  }
+
+  @Test
+  void spliterator () {
+
+    final var map =
+      referents ();
+
+    final var container =
+      new AbstractContainer<> (
+        EMPTY,
+        map
+      ) {
+      };
+
+    final var spliterator =
+      container.spliterator ();
+
+    assertTrue (
+      spliterator.hasCharacteristics ( SIZED )
+    );
+
+    assertEquals (
+      COUNT,
+      spliterator.getExactSizeIfKnown ()
+    );
+
+    // the parts split off and the remainder together
+    // cover each referent of the map exactly once
+
+    final var parts =
+      new ArrayList<> (
+        List.of ( spliterator )
+      );
+
+    for ( var i = 0; i < 3; i++ ) {
+
+      for ( final var part : List.copyOf ( parts ) ) {
+
+        final var split =
+          part.trySplit ();
+
+        if ( split != null )
+          parts.add ( split );
+
+      }
+
+    }
+
+    assertTrue (
+      parts.size () > 1
+    );
+
+    final var referents =
+      new ArrayList< Referent > ();
+
+    for ( final var part : parts )
+      part.forEachRemaining ( referents::add );
+
+    assertEquals (
+      COUNT,
+      referents.size ()
+    );
+
+    assertEquals (
+      new HashSet<> ( map.values () ),
+      new HashSet<> ( referents )
+    );
+
+    assertEquals (
+      new HashSet<> ( map.values () ),
+      container.stream ().parallel ().collect ( toSet () )
+    );
+
+  }
+
+  @Test
+  void unknown () {
+
+    final var map =
+      referents ();
+
+    // a container that only provides an iterator streams all of it, unsized
+
+    final Container< Referent > container =
+      new Container<> () {
+
+        @Override
+        public Referent get (
+          final Name name,
+          final Referent defValue
+        ) {
+
+          return
+            map.getOrDefault (
+              name,
+              defValue
+            );
+
+        }
+
+
+        @Override
+        public Iterator< Referent > iterator () {
+
+          return
+            map.values ().iterator ();
+
+        }
+
+      };
+
+    assertFalse (
+      container.spliterator ().hasCharacteristics ( SIZED )
+    );
+
+    assertEquals (
+      new HashSet<> ( map.values () ),
+      container.stream ().collect ( toSet () )
+    );
+
+    assertEquals (
+      COUNT,
+      container.stream ().count ()
+    );
+
+  }
+
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Name;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the {@link MappedEnvironment} index.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class MappedEnvironmentTest {
+
+  private static final String CONTENT =
+    "\uFEFF# a comment\n"
+      + "! another comment\n"
+      + "\n"
+      + "   \t\n"
+      + "a.b=1\n"
+      + "a.c : two words \r\n"
+      + "  a.d\t3\n"
+      + "a.e\n"
+      + "a.f=\n"
+      + "=ignored\n"
+      + ":ignored\n"
+      + "rööt.€=euro\r\n"
+      + "a.b=replaced\n"
+      + "last=no newline";
+
+  private static MappedEnvironment of (
+    final String content
+  ) {
+
+    return
+      MappedEnvironment.of (
+        ByteBuffer.wrap (
+          content.getBytes ( UTF_8 )
+        )
+      );
+
+  }
+
+  @Test
+  void parsing () {
+
+    final var names =
+      Names.create ();
+
+    final var environment =
+      of (
+        CONTENT
+      );
+
+    assertEquals ( "replaced", environment.get ( names.name ( "a.b" ), null ) );
+    assertEquals ( "two words ", environment.get ( names.name ( "a.c" ), null ) );
+    assertEquals ( "3", environment.get ( names.name ( "a.d" ), null ) );
+    assertEquals ( "", environment.get ( names.name ( "a.e" ), null ) );
+    assertEquals ( "", environment.get ( names.name ( "a.f" ), null ) );
+    assertEquals ( "euro", environment.get ( names.name ( "rööt.€" ), null ) );
+    assertEquals ( "no newline", environment.get ( names.name ( "last" ), null ) );
+
+    assertEquals (
+      7,
+      environment.size ()
+    );
+
+    for ( final var absent : List.of ( "ignored", "a", "a.b.c", "#", "a.comment" ) ) {
+
+      assertEquals (
+        "default",
+        environment.get ( names.name ( absent ), "default" ),
+        absent
+      );
+
+    }
+
+    // trailing blanks are kept as in the properties format, while
+    // the carriage return of a line ending is dropped; the byte
+    // order mark is optional, and may be all the content there is
+
+    assertEquals (
+      "1",
+      of ( "x=1" ).get ( names.name ( "x" ), null )
+    );
+
+    assertEquals (
+      0,
+      of ( "" ).size ()
+    );
+
+    assertEquals (
+      0,
+      of ( "\uFEFF" ).size ()
+    );
+
+  }
+
+  @Test
+  void lookup ()
+  throws IOException {
+
+    final var file =
+      Files.createTempFile (
+        "mapped",
+        ".properties"
+      );
+
+    try {
+
+      Files.writeString (
+        file,
+        CONTENT
+      );
+
+      final var mapped =
+        MappedEnvironment.open (
+          file
+        );
+
+      final var direct =
+        MappedEnvironment.of (
+          ByteBuffer
+            .allocateDirect ( CONTENT.getBytes ( UTF_8 ).length )
+            .put ( CONTENT.getBytes ( UTF_8 ) )
+            .flip ()
+        );
+
+      // names are matched by their stable hash and path, whatever table
+      // they come from, and each keeps its own decoded value thereafter
+
+      final var first =
+        Names.create ();
+
+      final var second =
+        Names.weak ();
+
+      for ( final var environment : List.of ( mapped, direct, of ( CONTENT ) ) ) {
+
+        final var name =
+          first.name (
+            "rööt.€"
+          );
+
+        final var value =
+          environment.get (
+            name,
+            null
+          );
+
+        assertEquals (
+          "euro",
+          value
+        );
+
+        assertSame (
+          value,
+          environment.get ( name, null )
+        );
+
+        assertEquals (
+          "euro",
+          environment.get ( second.name ( "rööt.€" ), null )
+        );
+
+        assertEquals (
+          "euro",
+          environment.get ( first.name ( "rööt" ).name ( "€" ), null )
+        );
+
+        assertEquals (
+          "replaced",
+          environment.get ( second.name ( "a.b" ), null )
+        );
+
+        assertNull (
+          environment.get ( second.name ( "a.b.c" ), null )
+        );
+
+      }
+
+    } finally {
+
+      Files.delete (
+        file
+      );
+
+    }
+
+  }
+
+  @Test
+  void stableHash () {
+
+    final var names =
+      Names.create ();
+
+    // hashing the bytes of each segment and combining them
+    // gives the stable hash of the name the file is indexed by
+
+    var hash = 0L;
+
+    for ( final var segment : List.of ( "rööt", "€", "leaf" ) ) {
+
+      var fnv =
+        0xCBF29CE484222325L;
+
+      for ( final var b : segment.getBytes ( UTF_8 ) )
+        fnv = ( fnv ^ ( b & 0xFF ) ) * 0x100000001B3L;
+
+      assertEquals (
+        Name.stableHash ( hash, segment ),
+        Name.stableHash ( hash, fnv )
+      );
+
+      hash =
+        Name.stableHash (
+          hash,
+          fnv
+        );
+
+    }
+
+    assertEquals (
+      names.name ( "rööt.€.leaf" ).stableHash (),
+      hash
+    );
+
+  }
+
+}
@@ -0,0 +1,484 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Environment;
+import io.humainary.substrates.Substrates.Name;
+import io.humainary.substrates.Substrates.Subscription;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the {@link MemorizingEnvironment} bounded cache.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class MemorizingEnvironmentTest {
+
+  private static final Names NAMES = Names.create ();
+  private static final Name  A     = NAMES.name ( "a" );
+  private static final Name  B     = NAMES.name ( "b" );
+  private static final Name  C     = NAMES.name ( "c" );
+  private static final Name  D     = NAMES.name ( "d" );
+  private static final Name  E     = NAMES.name ( "e" );
+
+  private static Source source () {
+
+    final var source =
+      new Source ();
+
+    source.values.put ( A, 1 );
+    source.values.put ( B, 2 );
+    source.values.put ( C, 3 );
+    source.values.put ( D, 4 );
+
+    return
+      source;
+
+  }
+
+  @Test
+  void eviction () {
+
+    final var source =
+      source ();
+
+    final var cache =
+      MemorizingEnvironment.create (
+        source,
+        3
+      );
+
+    assertEquals ( 1, cache.get ( A, null ) );
+    assertEquals ( 2, cache.get ( B, null ) );
+    assertEquals ( 3, cache.get ( C, null ) );
+
+    assertEquals (
+      3,
+      cache.size ()
+    );
+
+    // a is read again, so the hand spares it and evicts b
+
+    assertEquals ( 1, cache.get ( A, null ) );
+    assertEquals ( 4, cache.get ( D, null ) );
+
+    assertEquals (
+      1L,
+      cache.evictions ()
+    );
+
+    assertEquals ( 1, cache.get ( A, null ) );
+    assertEquals ( 3, cache.get ( C, null ) );
+    assertEquals ( 4, cache.get ( D, null ) );
+
+    assertEquals (
+      4,
+      source.lookups
+    );
+
+    // with every entry read, the hand clears each mark once
+    // and then evicts the entry it started from, c
+
+    assertEquals ( 2, cache.get ( B, null ) );
+
+    assertEquals (
+      5,
+      source.lookups
+    );
+
+    assertEquals ( 1, cache.get ( A, null ) );
+    assertEquals ( 4, cache.get ( D, null ) );
+
+    assertEquals (
+      5,
+      source.lookups
+    );
+
+    assertEquals ( 3, cache.get ( C, null ) );
+
+    assertEquals (
+      6,
+      source.lookups
+    );
+
+    assertEquals (
+      3,
+      cache.size ()
+    );
+
+    assertEquals (
+      3L,
+      cache.evictions ()
+    );
+
+  }
+
+  @Test
+  void misses () {
+
+    final var source =
+      source ();
+
+    final var cache =
+      MemorizingEnvironment.create (
+        source,
+        8
+      );
+
+    // a name without a value is cached, yet each caller gets its own default
+
+    assertEquals (
+      "x",
+      cache.get ( E, "x" )
+    );
+
+    assertEquals (
+      "y",
+      cache.get ( E, "y" )
+    );
+
+    assertNull (
+      cache.get ( E, null )
+    );
+
+    assertEquals (
+      1,
+      source.lookups
+    );
+
+    assertEquals (
+      1L,
+      cache.misses ()
+    );
+
+    assertEquals (
+      2L,
+      cache.hits ()
+    );
+
+    assertEquals (
+      1,
+      cache.size ()
+    );
+
+    assertEquals ( 1, cache.get ( A, null ) );
+    assertEquals ( 1, cache.get ( A, null ) );
+
+    assertEquals (
+      2,
+      source.lookups
+    );
+
+    assertEquals (
+      3L,
+      cache.hits ()
+    );
+
+    assertEquals (
+      0L,
+      cache.evictions ()
+    );
+
+  }
+
+  @Test
+  void invalidation () {
+
+    final var source =
+      source ();
+
+    final var cache =
+      MemorizingEnvironment.create (
+        source,
+        2
+      );
+
+    assertEquals ( 1, cache.get ( A, null ) );
+    assertEquals ( 2, cache.get ( B, null ) );
+
+    source.put (
+      A,
+      10
+    );
+
+    assertEquals (
+      1,
+      cache.size ()
+    );
+
+    assertEquals (
+      source.version (),
+      cache.version ()
+    );
+
+    assertEquals ( 10, cache.get ( A, null ) );
+    assertEquals ( 10, cache.get ( A, null ) );
+
+    assertEquals (
+      3,
+      source.lookups
+    );
+
+    // the invalidated slot is reused without counting as an eviction
+
+    assertEquals (
+      0L,
+      cache.evictions ()
+    );
+
+    assertEquals (
+      2,
+      cache.size ()
+    );
+
+    // a value looked up while the version moved is not cached
+
+    source.racing =
+      C;
+
+    assertEquals ( 3, cache.get ( C, null ) );
+    assertEquals ( 3, cache.get ( C, null ) );
+
+    assertEquals (
+      5,
+      source.lookups
+    );
+
+    assertEquals (
+      2,
+      cache.size ()
+    );
+
+  }
+
+  @Test
+  void derived () {
+
+    // a cache over an environment derived from the source is told of its changes
+
+    final List< Function< Environment, Environment > > derivations =
+      List.of (
+        source -> source.override ( E, () -> 5 ),
+        source -> source.remap ( name -> name ),
+        source -> source.filter ( name -> true ),
+        source -> source.override ( source.override ( E, 5 ) )
+      );
+
+    for ( final var derivation : derivations ) {
+
+      final var source =
+        source ();
+
+      final var derived =
+        derivation.apply (
+          source
+        );
+
+      final var cache =
+        MemorizingEnvironment.create (
+          derived,
+          8
+        );
+
+      assertEquals ( 1, cache.get ( A, null ) );
+
+      source.put (
+        A,
+        10
+      );
+
+      assertNotEquals (
+        0L,
+        derived.version ()
+      );
+
+      assertEquals (
+        derived.version (),
+        cache.version ()
+      );
+
+      assertEquals ( 10, cache.get ( A, null ) );
+      assertEquals ( 4, cache.get ( D, null ) );
+
+    }
+
+  }
+
+  @Test
+  void subscription ()
+  throws InterruptedException {
+
+    final var source =
+      source ();
+
+    final var cache =
+      MemorizingEnvironment.create (
+        source,
+        2
+      );
+
+    assertEquals (
+      1,
+      source.listeners.size ()
+    );
+
+    cache.close ();
+
+    assertEquals (
+      0,
+      source.listeners.size ()
+    );
+
+    // caches dropped without being closed are not held by their listeners,
+    // which are removed once the caches are reclaimed, with no change made
+
+    for ( var i = 0; i < 1_000; i++ ) {
+
+      MemorizingEnvironment.create (
+        source,
+        2
+      ).get (
+        A,
+        null
+      );
+
+    }
+
+    assertEquals (
+      1_000,
+      source.listeners.size ()
+    );
+
+    final var deadline =
+      System.nanoTime () + 10_000_000_000L;
+
+    while ( !source.listeners.isEmpty () && System.nanoTime () < deadline ) {
+
+      System.gc ();
+
+      Thread.sleep (
+        10L
+      );
+
+    }
+
+    assertEquals (
+      0,
+      source.listeners.size ()
+    );
+
+    assertEquals (
+      0L,
+      source.version ()
+    );
+
+  }
+
+  @Test
+  void capacity () {
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> MemorizingEnvironment.create ( source (), 0 )
+    );
+
+    assertThrows (
+      NullPointerException.class,
+      () -> MemorizingEnvironment.create ( null, 1 )
+    );
+
+  }
+
+
+  // a mutable environment that counts its lookups and notifies its listeners
+
+  static final class Source
+    implements Environment {
+
+    final Map< Name, Object >                              values    = new ConcurrentHashMap<> ();
+    final CopyOnWriteArrayList< Consumer< ? super Name > > listeners = new CopyOnWriteArrayList<> ();
+
+    volatile int  lookups;
+    volatile long version;
+    volatile Name racing;
+
+    @Override
+    public Object get (
+      final Name name,
+      final Object defVal
+    ) {
+
+      lookups++;
+
+      if ( name.equals ( racing ) )
+        version++;
+
+      return
+        values.getOrDefault (
+          name,
+          defVal
+        );
+
+    }
+
+
+    void put (
+      final Name name,
+      final Object value
+    ) {
+
+      values.put (
+        name,
+        value
+      );
+
+      version++;
+
+      for ( final var listener : listeners )
+        listener.accept ( name );
+
+    }
+
+
+    @Override
+    public long version () {
+
+      return
+        version;
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      listeners.add (
+        listener
+      );
+
+      return
+        () ->
+          listeners.remove (
+            listener
+          );
+
+    }
+
+  }
+
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Name;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the {@link NameCodec} encoder and decoder.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class NameCodecTest {
+
+  private static final List< String > PATHS =
+    List.of (
+      "service.orders.latency",
+      "service.orders.errors",
+      "service.payments.latency",
+      "rööt.€€.😀.leaf",
+      "q.q",
+      "a.b.a.b.c",
+      "service.orders.latency"
+    );
+
+  private static List< Name > roundTrip (
+    final Names source,
+    final Names target,
+    final List< String > paths,
+    final ByteBuffer buffer
+  ) {
+
+    final var encoder =
+      NameCodec.encoder ();
+
+    for ( final var path : paths )
+      encoder.encode ( source.name ( path ), buffer );
+
+    buffer.flip ();
+
+    final var decoder =
+      NameCodec.decoder (
+        target
+      );
+
+    final var result =
+      new ArrayList< Name > ();
+
+    while ( buffer.hasRemaining () )
+      result.add ( decoder.decode ( buffer ) );
+
+    assertEquals (
+      encoder.size (),
+      decoder.size ()
+    );
+
+    return
+      result;
+
+  }
+
+  @Test
+  void roundTrip () {
+
+    final var names =
+      Names.create ();
+
+    for ( final var buffer : List.of ( ByteBuffer.allocate ( 512 ), ByteBuffer.allocateDirect ( 512 ) ) ) {
+
+      final var decoded =
+        roundTrip (
+          names,
+          names,
+          PATHS,
+          buffer
+        );
+
+      assertEquals (
+        PATHS.size (),
+        decoded.size ()
+      );
+
+      for ( var i = 0; i < PATHS.size (); i++ )
+        assertSame ( names.name ( PATHS.get ( i ) ), decoded.get ( i ) );
+
+    }
+
+    // into another table, where the segments are not yet interned
+
+    final var other =
+      Names.create ();
+
+    final var decoded =
+      roundTrip (
+        names,
+        other,
+        PATHS,
+        ByteBuffer.allocate ( 512 )
+      );
+
+    for ( var i = 0; i < PATHS.size (); i++ )
+      assertSame ( other.name ( PATHS.get ( i ) ), decoded.get ( i ) );
+
+  }
+
+  @Test
+  void dictionary () {
+
+    final var names =
+      Names.create ();
+
+    final var encoder =
+      NameCodec.encoder ();
+
+    final var buffer =
+      ByteBuffer.allocate (
+        256
+      );
+
+    encoder.encode (
+      names.name ( "service.orders.latency" ),
+      buffer
+    );
+
+    final var first =
+      buffer.position ();
+
+    assertEquals (
+      3,
+      encoder.size ()
+    );
+
+    // segments from earlier records are referenced by a single byte
+
+    encoder.encode (
+      names.name ( "service.orders.latency" ),
+      buffer
+    );
+
+    assertEquals (
+      4,
+      buffer.position () - first
+    );
+
+    encoder.encode (
+      names.name ( "orders.service" ),
+      buffer
+    );
+
+    assertEquals (
+      3,
+      encoder.size ()
+    );
+
+    buffer.flip ();
+
+    final var decoder =
+      NameCodec.decoder (
+        names
+      );
+
+    assertSame (
+      names.name ( "service.orders.latency" ),
+      decoder.decode ( buffer )
+    );
+
+    assertSame (
+      names.name ( "service.orders.latency" ),
+      decoder.decode ( buffer )
+    );
+
+    assertSame (
+      names.name ( "orders.service" ),
+      decoder.decode ( buffer )
+    );
+
+    assertFalse (
+      buffer.hasRemaining ()
+    );
+
+  }
+
+  @Test
+  void repeated () {
+
+    final var names =
+      Names.create ();
+
+    // a new segment repeated within a name is written once,
+    // so the count, the literal and a reference fill the buffer
+
+    final var buffer =
+      ByteBuffer.allocate (
+        5
+      );
+
+    final var encoder =
+      NameCodec.encoder ();
+
+    encoder.encode (
+      names.name ( "q.q" ),
+      buffer
+    );
+
+    assertFalse (
+      buffer.hasRemaining ()
+    );
+
+    assertEquals (
+      1,
+      encoder.size ()
+    );
+
+    buffer.flip ();
+
+    assertSame (
+      names.name ( "q.q" ),
+      NameCodec.decoder ( names ).decode ( buffer )
+    );
+
+    final var decoded =
+      roundTrip (
+        names,
+        Names.create (),
+        List.of ( "x.y.x.y.z", "z.x.w.w" ),
+        ByteBuffer.allocate ( 32 )
+      );
+
+    assertEquals (
+      "x.y.x.y.z",
+      decoded.get ( 0 ).toString ()
+    );
+
+    assertEquals (
+      "z.x.w.w",
+      decoded.get ( 1 ).toString ()
+    );
+
+  }
+
+  @Test
+  void multibyte () {
+
+    final var names =
+      Names.create ();
+
+    final var path =
+      "rööt.€€.😀.leaf";
+
+    final var buffer =
+      ByteBuffer.allocate (
+        64
+      );
+
+    NameCodec.encoder ().encode (
+      names.name ( path ),
+      buffer
+    );
+
+    // the count, then a code and length ahead of each segment's utf-8 bytes
+
+    assertEquals (
+      1 + 2 * 4 + path.getBytes ( UTF_8 ).length - 3,
+      buffer.position ()
+    );
+
+    buffer.flip ();
+
+    final var other =
+      Names.create ();
+
+    final var name =
+      NameCodec.decoder ( other ).decode (
+        buffer
+      );
+
+    assertSame (
+      other.name ( path ),
+      name
+    );
+
+    assertEquals (
+      path,
+      name.toString ()
+    );
+
+  }
+
+  @Test
+  void overflow () {
+
+    final var names =
+      Names.create ();
+
+    final var encoder =
+      NameCodec.encoder ();
+
+    final var buffer =
+      ByteBuffer.allocate (
+        16
+      );
+
+    encoder.encode (
+      names.name ( "a.b" ),
+      buffer
+    );
+
+    final var position =
+      buffer.position ();
+
+    // a record that does not fit leaves the buffer and dictionary as they were
+
+    assertThrows (
+      BufferOverflowException.class,
+      () -> encoder.encode ( names.name ( "a.b.segment" ), buffer )
+    );
+
+    assertEquals (
+      position,
+      buffer.position ()
+    );
+
+    assertEquals (
+      2,
+      encoder.size ()
+    );
+
+    encoder.encode (
+      names.name ( "b.c" ),
+      buffer
+    );
+
+    buffer.flip ();
+
+    final var decoder =
+      NameCodec.decoder (
+        names
+      );
+
+    assertSame (
+      names.name ( "a.b" ),
+      decoder.decode ( buffer )
+    );
+
+    assertSame (
+      names.name ( "b.c" ),
+      decoder.decode ( buffer )
+    );
+
+  }
+
+  @Test
+  void malformed () {
+
+    final var names =
+      Names.create ();
+
+    for (
+      final var bytes : List.of (
+        new byte[] { 0 },                    // no segments
+        new byte[] { 1, 1 },                 // a code not yet in the dictionary
+        new byte[] { 1, 0, 0 },              // an empty literal
+        new byte[] { 1, 0, 4, 'a', 'b' },    // a literal longer than the input
+        new byte[] { -1, -1, -1, -1, -1, 1 } // a varint of more than 32 bits
+      )
+    ) {
+
+      assertThrows (
+        IllegalArgumentException.class,
+        () -> NameCodec.decoder ( names ).decode ( ByteBuffer.wrap ( bytes ) )
+      );
+
+    }
+
+    // invalid utf-8 is resolved as the replacement characters a decoder yields
+
+    final var invalid =
+      new byte[] { 1, 0, 2, 'a', (byte) 0xFF };
+
+    assertSame (
+      names.name ( new String ( new byte[] { 'a', (byte) 0xFF }, UTF_8 ) ),
+      NameCodec.decoder ( names ).decode ( ByteBuffer.wrap ( invalid ) )
+    );
+
+  }
+
+}
@@ -0,0 +1,979 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Name;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the {@link Names} interning trie.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class NamesTest {
+
+  private static final String PATH     = "root.node.leaf";
+  private static final String UNICODE  = "rööt.€€.😀.leaf";
+  private static final int    THREADS  = 8;
+  private static final int    CHILDREN = 2_000;
+  private static final int    DEPTH    = 150;
+  private static final int    DROPPED  = 1_000;
+
+  private static ByteBuffer direct (
+    final byte[] bytes
+  ) {
+
+    return
+      ByteBuffer
+        .allocateDirect ( bytes.length )
+        .put ( bytes )
+        .flip ();
+
+  }
+
+  private static void drop (
+    final Names names
+  ) {
+
+    for ( var i = 0; i < DROPPED; i++ )
+      names.name ( "drop.branch.leaf" + i );
+
+  }
+
+  private static Node deep (
+    final Names names,
+    final String prefix,
+    final int depth
+  ) {
+
+    var node =
+      (Node) names.name ( prefix );
+
+    for ( var i = node.depth; i < depth; i++ )
+      node = (Node) node.name ( "s" + i );
+
+    return
+      node;
+
+  }
+
+  @Test
+  void identity () {
+
+    final var names =
+      Names.create ();
+
+    final var name =
+      names.name (
+        PATH
+      );
+
+    assertSame (
+      name,
+      names.name ( PATH )
+    );
+
+    assertSame (
+      name,
+      names.name ( "root", "node.leaf" )
+    );
+
+    assertSame (
+      name,
+      names.name ( new StringBuilder ( PATH ) )
+    );
+
+    assertSame (
+      name,
+      names.name ( "root" ).name ( "node" ).name ( "leaf" )
+    );
+
+    assertSame (
+      name.enclosure ().orElseThrow (),
+      names.name ( "root.node" )
+    );
+
+    assertSame (
+      name,
+      names.name ( names.id ( name ) )
+    );
+
+    assertEquals (
+      3L,
+      names.size ()
+    );
+
+    assertNotSame (
+      name,
+      Names.create ().name ( PATH )
+    );
+
+    assertEquals (
+      -1,
+      Names.create ().id ( name )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> names.name ( "root..leaf" )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> names.name ( Integer.MAX_VALUE )
+    );
+
+  }
+
+  @Test
+  void ranges () {
+
+    final var names =
+      Names.create ();
+
+    final var name =
+      names.name (
+        PATH
+      );
+
+    final var padded =
+      "xx." + PATH + ".yy";
+
+    assertSame (
+      name,
+      names.name ( padded, 3, 3 + PATH.length () )
+    );
+
+    assertSame (
+      name,
+      names.name ( new StringBuilder ( padded ), 3, 3 + PATH.length () )
+    );
+
+    assertSame (
+      names.name ( "node" ),
+      names.name ( padded, 8, 12 )
+    );
+
+    assertThrows (
+      IndexOutOfBoundsException.class,
+      () -> names.name ( padded, 3, padded.length () + 1 )
+    );
+
+  }
+
+  @Test
+  void bytes () {
+
+    final var names =
+      Names.create ();
+
+    for ( final var path : List.of ( PATH, UNICODE, "a", "a.b", "segment.longer.than.a.word.of.bytes" ) ) {
+
+      final var name =
+        names.name (
+          path
+        );
+
+      final var utf8 =
+        path.getBytes (
+          UTF_8
+        );
+
+      assertSame (
+        name,
+        names.name ( utf8 ),
+        path
+      );
+
+      assertSame (
+        name,
+        names.name ( ByteBuffer.wrap ( utf8 ) ),
+        path
+      );
+
+      assertSame (
+        name,
+        names.name ( direct ( utf8 ) ),
+        path
+      );
+
+      assertSame (
+        name,
+        names.name ( ByteBuffer.wrap ( utf8 ).order ( LITTLE_ENDIAN ) ),
+        path
+      );
+
+      assertSame (
+        name,
+        names.name ( direct ( utf8 ).order ( LITTLE_ENDIAN ) ),
+        path
+      );
+
+      // a range within a larger buffer, whose position and limit are left as they were
+
+      final var padded =
+        ByteBuffer.allocate ( utf8.length + 16 )
+          .order ( LITTLE_ENDIAN )
+          .put ( "prefix..".getBytes ( UTF_8 ) )
+          .put ( utf8 )
+          .put ( "..suffix".getBytes ( UTF_8 ) );
+
+      padded
+        .position ( 8 )
+        .limit ( 8 + utf8.length );
+
+      assertSame (
+        name,
+        names.name ( padded ),
+        path
+      );
+
+      assertEquals (
+        8,
+        padded.position ()
+      );
+
+      assertEquals (
+        8 + utf8.length,
+        padded.limit ()
+      );
+
+    }
+
+    // names first seen as bytes match those later resolved from strings
+
+    final var fresh =
+      Names.create ();
+
+    final var name =
+      fresh.name (
+        direct ( UNICODE.getBytes ( UTF_8 ) )
+      );
+
+    assertSame (
+      name,
+      fresh.name ( UNICODE )
+    );
+
+    assertEquals (
+      UNICODE,
+      name.toString ()
+    );
+
+    // malformed input resolves as the replacement characters a decoder yields
+
+    assertSame (
+      names.name ( "a�" ),
+      names.name ( new byte[] { 'a', (byte) 0xFF } )
+    );
+
+    final var surrogate =
+      new byte[] { 'b', (byte) 0xED, (byte) 0xA0, (byte) 0x80 };
+
+    assertSame (
+      names.name ( new String ( surrogate, UTF_8 ) ),
+      names.name ( surrogate )
+    );
+
+  }
+
+  @Test
+  void encoding () {
+
+    final var names =
+      Names.create ();
+
+    // a leaf is encoded onto the cached bytes of its enclosure,
+    // at the buffer's position, whether or not it is at zero
+
+    final var enclosure =
+      names.name (
+        UNICODE
+      );
+
+    assertEquals (
+      ByteBuffer.wrap ( UNICODE.getBytes ( UTF_8 ) ),
+      enclosure.toPathBuffer ()
+    );
+
+    for ( final var suffix : List.of ( "x", "€😀", "lone\uD800" ) ) {
+
+      final var name =
+        enclosure.name (
+          suffix
+        );
+
+      final var utf8 =
+        name.toString ().getBytes (
+          UTF_8
+        );
+
+      for ( final var buffer : List.of ( ByteBuffer.allocate ( 128 ), ByteBuffer.allocateDirect ( 128 ) ) ) {
+
+        buffer.put (
+          "pre".getBytes ( UTF_8 )
+        );
+
+        // the first write encodes and caches, the second copies the cache
+
+        name.writeTo ( buffer );
+        name.writeTo ( buffer );
+
+        assertEquals (
+          3 + 2 * utf8.length,
+          buffer.position ()
+        );
+
+        buffer.flip ().position ( 3 );
+
+        assertEquals (
+          ByteBuffer.allocate ( 2 * utf8.length ).put ( utf8 ).put ( utf8 ).flip (),
+          buffer
+        );
+
+      }
+
+      assertEquals (
+        ByteBuffer.wrap ( utf8 ),
+        name.toPathBuffer ()
+      );
+
+    }
+
+    // a write that does not fit, or a read-only target, leaves the
+    // position unchanged, before and after the bytes are cached
+
+    for ( final var cached : List.of ( false, true ) ) {
+
+      final var name =
+        names.name (
+          ( cached ? "cached." : "fresh." ) + UNICODE
+        );
+
+      if ( cached )
+        name.toPathBuffer ();
+
+      final var size =
+        name.toString ().getBytes ( UTF_8 ).length;
+
+      final var small =
+        ByteBuffer.allocate ( size + 1 ).position ( 2 );
+
+      assertThrows (
+        BufferOverflowException.class,
+        () -> name.writeTo ( small )
+      );
+
+      assertEquals (
+        2,
+        small.position ()
+      );
+
+      final var readOnly =
+        ByteBuffer.allocate ( size + 1 ).asReadOnlyBuffer ();
+
+      assertThrows (
+        ReadOnlyBufferException.class,
+        () -> name.writeTo ( readOnly )
+      );
+
+      assertEquals (
+        0,
+        readOnly.position ()
+      );
+
+      assertTrue (
+        name.toPathBuffer ().isReadOnly ()
+      );
+
+    }
+
+  }
+
+  @Test
+  void pooling () {
+
+    final var pooled =
+      Names.create ();
+
+    final var unpooled =
+      Names.unpooled ();
+
+    for ( final var table : List.of ( pooled, unpooled ) ) {
+
+      table.name ( "a.shared" );
+      table.name ( "b.shared" );
+
+    }
+
+    // a value repeated beneath another enclosure is held once when pooled
+
+    assertSame (
+      pooled.name ( "a.shared" ).value (),
+      pooled.name ( "b.shared" ).value ()
+    );
+
+    assertEquals (
+      3,
+      pooled.segments ()
+    );
+
+    assertNotSame (
+      unpooled.name ( "a.shared" ).value (),
+      unpooled.name ( "b.shared" ).value ()
+    );
+
+    assertEquals (
+      -1,
+      unpooled.segments ()
+    );
+
+    assertSame (
+      unpooled.name ( "a.shared" ),
+      unpooled.name ( "a".getBytes ( UTF_8 ) ).name ( "shared" )
+    );
+
+  }
+
+  @Test
+  void resize ()
+  throws Exception {
+
+    final var names =
+      Names.create ();
+
+    final var barrier =
+      new CyclicBarrier (
+        THREADS
+      );
+
+    final List< Callable< List< Name > > > tasks =
+      new ArrayList<> ();
+
+    // every thread inserts the same children in its own order,
+    // so that tables are grown while others probe and insert
+
+    for ( var t = 0; t < THREADS; t++ ) {
+
+      final var seed =
+        t;
+
+      tasks.add (
+        () -> {
+
+          final var order =
+            new ArrayList< Integer > ();
+
+          for ( var i = 0; i < CHILDREN; i++ )
+            order.add ( i );
+
+          Collections.shuffle (
+            order,
+            new Random ( seed )
+          );
+
+          final var result =
+            new Name[CHILDREN];
+
+          barrier.await ();
+
+          for ( final int i : order )
+            result[i] = names.name ( "parent.child" + i );
+
+          return
+            List.of ( result );
+
+        }
+      );
+
+    }
+
+    final ExecutorService executor =
+      Executors.newFixedThreadPool (
+        THREADS
+      );
+
+    try {
+
+      final var results =
+        new ArrayList< List< Name > > ();
+
+      for ( final Future< List< Name > > future : executor.invokeAll ( tasks ) )
+        results.add ( future.get () );
+
+      final var first =
+        results.get ( 0 );
+
+      for ( final var result : results ) {
+
+        for ( var i = 0; i < CHILDREN; i++ )
+          assertSame ( first.get ( i ), result.get ( i ) );
+
+      }
+
+      assertEquals (
+        CHILDREN,
+        new HashSet<> ( first ).size ()
+      );
+
+      assertEquals (
+        CHILDREN + 1L,
+        names.size ()
+      );
+
+      final var parent =
+        names.name (
+          "parent"
+        );
+
+      assertEquals (
+        CHILDREN,
+        names.descendants ( parent ).count ()
+      );
+
+      for ( var i = 0; i < CHILDREN; i++ ) {
+
+        final var name =
+          first.get ( i );
+
+        assertSame (
+          name,
+          names.name ( "parent.child" + i )
+        );
+
+        assertSame (
+          name,
+          names.name ( names.id ( name ) )
+        );
+
+      }
+
+    } finally {
+
+      executor.shutdown ();
+
+    }
+
+  }
+
+  @Test
+  void ancestors () {
+
+    final var names =
+      Names.create ();
+
+    final var shared =
+      deep (
+        names,
+        "root",
+        117
+      );
+
+    final var left =
+      deep (
+        names,
+        shared + ".left",
+        DEPTH
+      );
+
+    final var right =
+      deep (
+        names,
+        shared + ".right",
+        DEPTH + 13
+      );
+
+    // the skip pointers agree with a walk of the enclosures
+
+    var node =
+      left;
+
+    while ( node != null ) {
+
+      assertSame (
+        node,
+        left.ancestor ( node.depth )
+      );
+
+      node =
+        node.enclosure;
+
+    }
+
+    assertSame (
+      shared,
+      left.commonEnclosure ( right )
+    );
+
+    assertSame (
+      shared,
+      right.commonEnclosure ( left )
+    );
+
+    assertSame (
+      left.ancestor ( 101 ),
+      left.commonEnclosure ( left.ancestor ( 101 ) )
+    );
+
+    assertNull (
+      left.commonEnclosure ( names.name ( "other.s1" ) )
+    );
+
+    assertTrue (
+      left.within ( shared )
+    );
+
+    assertTrue (
+      right.within ( left.ancestor ( 1 ) )
+    );
+
+    assertFalse (
+      left.within ( right.ancestor ( DEPTH ) )
+    );
+
+    assertFalse (
+      shared.within ( left )
+    );
+
+    assertFalse (
+      left.within ( left )
+    );
+
+    assertSame (
+      names.name ( "root" ),
+      right.extremity ()
+    );
+
+  }
+
+  @Test
+  void concatenation () {
+
+    final var names =
+      Names.create ();
+
+    final var prefix =
+      (Node) names.name (
+        "prefix"
+      );
+
+    final var suffix =
+      (Node) names.name (
+        "a.b.c"
+      );
+
+    assertNull (
+      prefix.memoized ( suffix )
+    );
+
+    final var result =
+      prefix.name (
+        suffix
+      );
+
+    assertSame (
+      names.name ( "prefix.a.b.c" ),
+      result
+    );
+
+    assertSame (
+      result,
+      prefix.memoized ( suffix )
+    );
+
+    assertSame (
+      result,
+      prefix.name ( suffix )
+    );
+
+    // more suffixes than memo slots still resolve, whether or not they were kept
+
+    for ( var i = 0; i < 64; i++ ) {
+
+      final var other =
+        names.name (
+          "x" + i
+        );
+
+      assertSame (
+        names.name ( "prefix.x" + i ),
+        prefix.name ( other )
+      );
+
+      assertSame (
+        names.name ( "prefix.x" + i ),
+        prefix.name ( other )
+      );
+
+    }
+
+    // a weak table walks the suffix rather than keeping a memo
+
+    final var weak =
+      Names.weak ();
+
+    final var node =
+      (Node) weak.name (
+        "prefix"
+      );
+
+    final var other =
+      weak.name (
+        "a.b"
+      );
+
+    assertSame (
+      weak.name ( "prefix.a.b" ),
+      node.name ( other )
+    );
+
+    assertNull (
+      node.memoized ( (Node) other )
+    );
+
+  }
+
+  @Test
+  void descendants ()
+  throws Exception {
+
+    final var names =
+      Names.create ();
+
+    final var expected =
+      new HashSet< Name > ();
+
+    for ( final var path : List.of ( "a.b", "a.b.c", "a.b.d", "a.e", "a.e.f.g" ) )
+      expected.add ( names.name ( path ) );
+
+    expected.add (
+      names.name ( "a.e.f" )
+    );
+
+    names.name (
+      "other.b"
+    );
+
+    final var root =
+      names.name (
+        "a"
+      );
+
+    assertEquals (
+      expected,
+      names.descendants ( root ).collect ( toSet () )
+    );
+
+    assertEquals (
+      0L,
+      names.descendants ( names.name ( "a.b.c" ) ).count ()
+    );
+
+    // a prefix from another table is matched without being interned
+
+    final var size =
+      names.size ();
+
+    assertEquals (
+      expected,
+      names.descendants ( Names.create ().name ( "a" ) ).collect ( toSet () )
+    );
+
+    assertEquals (
+      Set.of ( names.name ( "a.b.c" ), names.name ( "a.b.d" ) ),
+      names.descendants ( Names.create ().name ( "a.b" ) ).collect ( toSet () )
+    );
+
+    assertEquals (
+      0L,
+      names.descendants ( Names.create ().name ( "a.x.y" ) ).count ()
+    );
+
+    assertEquals (
+      0L,
+      names.descendants ( Names.create ().name ( "absent" ) ).count ()
+    );
+
+    assertEquals (
+      size,
+      names.size ()
+    );
+
+    // a walk alongside inserts sees each name once, including
+    // every name interned before it started
+
+    final var before =
+      new HashSet< Name > (
+        expected
+      );
+
+    final ExecutorService executor =
+      Executors.newSingleThreadExecutor ();
+
+    try {
+
+      final var inserts =
+        executor.submit (
+          () -> {
+
+            for ( var i = 0; i < CHILDREN; i++ )
+              names.name ( "a.n" + i + ".leaf" );
+
+          }
+        );
+
+      while ( !inserts.isDone () ) {
+
+        final var seen =
+          names.descendants ( root ).collect ( toList () );
+
+        assertEquals (
+          seen.size (),
+          new HashSet<> ( seen ).size ()
+        );
+
+        assertTrue (
+          seen.containsAll ( before )
+        );
+
+        for ( final var name : seen )
+          assertTrue ( name.within ( root ) );
+
+      }
+
+      inserts.get ();
+
+    } finally {
+
+      executor.shutdown ();
+
+    }
+
+    assertEquals (
+      expected.size () + 2L * CHILDREN,
+      names.descendants ( root ).count ()
+    );
+
+  }
+
+  @Test
+  void reclamation ()
+  throws InterruptedException {
+
+    final var names =
+      Names.weak ();
+
+    final var kept =
+      names.name (
+        PATH
+      );
+
+    final var id =
+      names.id (
+        kept
+      );
+
+    drop (
+      names
+    );
+
+    final var dropped =
+      DROPPED + 2L;
+
+    assertEquals (
+      dropped + 3L,
+      names.size ()
+    );
+
+    // the dropped branch, its root included, is reclaimed
+    // without any further names being resolved in the table
+
+    final var deadline =
+      System.nanoTime () + 10_000_000_000L;
+
+    while ( names.reclaimed () < dropped && System.nanoTime () < deadline ) {
+
+      System.gc ();
+
+      Thread.sleep (
+        10L
+      );
+
+    }
+
+    assertEquals (
+      dropped,
+      names.reclaimed ()
+    );
+
+    assertEquals (
+      3L,
+      names.size ()
+    );
+
+    // held names keep their identity and id, and are still walked
+
+    assertSame (
+      kept,
+      names.name ( PATH )
+    );
+
+    assertSame (
+      kept,
+      names.name ( id )
+    );
+
+    assertSame (
+      kept.enclosure ().orElseThrow (),
+      names.name ( "root.node" )
+    );
+
+    assertEquals (
+      2L,
+      names.descendants ( names.name ( "root" ) ).count ()
+    );
+
+    assertEquals (
+      3L,
+      names.size ()
+    );
+
+    // ids of reclaimed names are reused by new ones
+
+    assertTrue (
+      names.id ( names.name ( "drop" ) ) < dropped + 3L
+    );
+
+    assertSame (
+      kept,
+      names.name ( PATH )
+    );
+
+  }
+
+}
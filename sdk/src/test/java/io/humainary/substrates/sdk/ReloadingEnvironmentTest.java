@@ -0,0 +1,335 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Name;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the {@link ReloadingEnvironment} watcher.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class ReloadingEnvironmentTest {
+
+  private static final String FIRST  = "a=1\nb=2\nc=3\n";
+  private static final String SECOND = "a=1\nb=two\nd=4\n";
+
+  // replaced whole, so that the watching thread never reads a partial file
+
+  private static void write (
+    final Path file,
+    final String content
+  ) throws IOException {
+
+    final var temp =
+      Files.writeString (
+        file.resolveSibling ( file.getFileName () + ".tmp" ),
+        content
+      );
+
+    Files.move (
+      temp,
+      file,
+      ATOMIC_MOVE,
+      REPLACE_EXISTING
+    );
+
+  }
+
+  @Test
+  void reload ()
+  throws IOException {
+
+    final var directory =
+      Files.createTempDirectory (
+        "reloading"
+      );
+
+    final var file =
+      directory.resolve (
+        "environment.properties"
+      );
+
+    write (
+      file,
+      FIRST
+    );
+
+    final var names =
+      Names.create ();
+
+    try (
+      final var environment =
+        ReloadingEnvironment.watch (
+          file,
+          names::name
+        )
+    ) {
+
+      final var changed =
+        new CopyOnWriteArrayList< Name > ();
+
+      environment.onChange (
+        changed::add
+      );
+
+      assertEquals (
+        0L,
+        environment.version ()
+      );
+
+      assertEquals (
+        "2",
+        environment.get ( names.name ( "b" ), null )
+      );
+
+      final var first =
+        environment.snapshot ();
+
+      // rereading unchanged content leaves the version and snapshot as they are
+
+      environment.reload ();
+
+      assertEquals (
+        0L,
+        environment.version ()
+      );
+
+      assertSame (
+        first,
+        environment.snapshot ()
+      );
+
+      write (
+        file,
+        SECOND
+      );
+
+      // waits for a reload the watching thread may have started
+
+      environment.reload ();
+
+      assertEquals (
+        1L,
+        environment.version ()
+      );
+
+      assertNotSame (
+        first,
+        environment.snapshot ()
+      );
+
+      assertEquals ( "1", environment.get ( names.name ( "a" ), null ) );
+      assertEquals ( "two", environment.get ( names.name ( "b" ), null ) );
+      assertNull ( environment.get ( names.name ( "c" ), null ) );
+      assertEquals ( "4", environment.get ( names.name ( "d" ), null ) );
+
+      // the keys added, removed or given another value, each reported once
+
+      assertEquals (
+        3,
+        changed.size ()
+      );
+
+      assertEquals (
+        Set.of ( names.name ( "b" ), names.name ( "c" ), names.name ( "d" ) ),
+        new HashSet<> ( changed )
+      );
+
+      assertEquals (
+        "3",
+        first.get ( names.name ( "c" ), null )
+      );
+
+    } finally {
+
+      for ( final var path : List.of ( file, directory ) )
+        Files.deleteIfExists ( path );
+
+    }
+
+  }
+
+  @Test
+  void failures ()
+  throws IOException {
+
+    final var directory =
+      Files.createTempDirectory (
+        "reloading"
+      );
+
+    final var file =
+      directory.resolve (
+        "environment.properties"
+      );
+
+    write (
+      file,
+      FIRST
+    );
+
+    final var names =
+      Names.create ();
+
+    try (
+      final var environment =
+        ReloadingEnvironment.watch (
+          file,
+          key -> {
+
+            if ( key.equals ( "c" ) )
+              throw new IllegalStateException ( key );
+
+            return
+              names.name ( key );
+
+          }
+        )
+    ) {
+
+      final var changed =
+        new CopyOnWriteArrayList< Name > ();
+
+      environment.onChange (
+        name -> {
+          throw new UnsupportedOperationException ( name.toString () );
+        }
+      );
+
+      environment.onChange (
+        changed::add
+      );
+
+      // reloaded here alone, so that the failures are seen by this thread
+
+      environment.close ();
+
+      write (
+        file,
+        SECOND + "bad..key=5\n"
+      );
+
+      final var failure =
+        assertThrows (
+          RuntimeException.class,
+          environment::reload
+        );
+
+      // every listener is told of every key that is a valid name, with
+      // the failures of the parser and of the listener all reported
+
+      assertEquals (
+        Set.of ( names.name ( "b" ), names.name ( "d" ) ),
+        new HashSet<> ( changed )
+      );
+
+      assertEquals (
+        2,
+        changed.size ()
+      );
+
+      assertEquals (
+        3,
+        1 + failure.getSuppressed ().length
+      );
+
+      assertEquals (
+        1L,
+        environment.version ()
+      );
+
+      assertEquals (
+        "two",
+        environment.get ( names.name ( "b" ), null )
+      );
+
+    } finally {
+
+      for ( final var path : List.of ( file, directory ) )
+        Files.deleteIfExists ( path );
+
+    }
+
+  }
+
+  @Test
+  void watch ()
+  throws IOException, InterruptedException {
+
+    final var directory =
+      Files.createTempDirectory (
+        "reloading"
+      );
+
+    final var file =
+      directory.resolve (
+        "environment.properties"
+      );
+
+    write (
+      file,
+      FIRST
+    );
+
+    final var names =
+      Names.create ();
+
+    try (
+      final var environment =
+        ReloadingEnvironment.watch (
+          file,
+          names::name
+        )
+    ) {
+
+      // the change is picked up by the watching thread alone
+
+      write (
+        file,
+        SECOND
+      );
+
+      final var deadline =
+        System.nanoTime () + 30_000_000_000L;
+
+      while ( environment.version () == 0L && System.nanoTime () < deadline )
+        Thread.sleep ( 10L );
+
+      assertEquals (
+        1L,
+        environment.version ()
+      );
+
+      assertEquals (
+        "two",
+        environment.get ( names.name ( "b" ), null )
+      );
+
+    } finally {
+
+      for ( final var path : List.of ( file, directory ) )
+        Files.deleteIfExists ( path );
+
+    }
+
+  }
+
+}
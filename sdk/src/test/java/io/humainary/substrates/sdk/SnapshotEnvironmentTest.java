@@ -0,0 +1,313 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import io.humainary.substrates.Substrates.Name;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the {@link SnapshotEnvironment} table.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class SnapshotEnvironmentTest {
+
+  private static final int COUNT = 100;
+
+  @Test
+  void placement () {
+
+    // names interned by a table are placed by id, others by identity
+    // hash, and names of another table share the ids of the first
+
+    final var first =
+      Names.create ();
+
+    final var second =
+      Names.weak ();
+
+    final var names =
+      new ArrayList< Name > ();
+
+    for ( var i = 0; i < COUNT; i++ ) {
+
+      names.add ( first.name ( "first.n" + i ) );
+      names.add ( second.name ( "second.n" + i ) );
+      names.add ( new Foreign ( "foreign" + i ) );
+
+    }
+
+    final var builder =
+      SnapshotEnvironment.builder ();
+
+    for ( var i = 0; i < names.size (); i++ )
+      builder.put ( names.get ( i ), i );
+
+    final var environment =
+      builder.build ();
+
+    assertEquals (
+      names.size (),
+      environment.size ()
+    );
+
+    for ( var i = 0; i < names.size (); i++ ) {
+
+      assertEquals (
+        i,
+        environment.get ( names.get ( i ), null ),
+        names.get ( i ).toString ()
+      );
+
+    }
+
+    // names are matched by identity, so an equal path of another
+    // table, or another name with the same value, is a miss
+
+    for (
+      final var absent : List.of (
+        first.name ( "second.n0" ),
+        second.name ( "first.n0" ),
+        first.name ( "first.n" + COUNT ),
+        new Foreign ( "foreign0" )
+      )
+    ) {
+
+      assertEquals (
+        "default",
+        environment.get ( absent, "default" ),
+        absent.toString ()
+      );
+
+      assertNull (
+        environment.get ( absent, null )
+      );
+
+    }
+
+    final var empty =
+      SnapshotEnvironment.builder ().build ();
+
+    assertEquals (
+      0,
+      empty.size ()
+    );
+
+    assertEquals (
+      "default",
+      empty.get ( first.name ( "first.n0" ), "default" )
+    );
+
+  }
+
+  @Test
+  void replacement () {
+
+    final var names =
+      Names.create ();
+
+    final var a =
+      names.name ( "a" );
+
+    final var b =
+      names.name ( "b" );
+
+    final var c =
+      names.name ( "c" );
+
+    // a later put of a name wins, while a null value is ignored
+
+    final var environment =
+      SnapshotEnvironment.builder ()
+        .put ( a, "first" )
+        .put ( b, "b" )
+        .put ( a, "second" )
+        .put ( b, null )
+        .put ( c, null )
+        .build ();
+
+    assertEquals ( "second", environment.get ( a, null ) );
+    assertEquals ( "b", environment.get ( b, null ) );
+    assertEquals ( "default", environment.get ( c, "default" ) );
+
+    assertEquals (
+      2,
+      environment.size ()
+    );
+
+    assertThrows (
+      NullPointerException.class,
+      () -> SnapshotEnvironment.builder ().put ( null, "value" )
+    );
+
+    // a map is taken as it stands, with its null values left out
+
+    final var map =
+      new HashMap< Name, Object > ();
+
+    map.put ( a, "a" );
+    map.put ( c, null );
+
+    final var copied =
+      SnapshotEnvironment.of (
+        map
+      );
+
+    map.put ( b, "b" );
+
+    assertEquals ( "a", copied.get ( a, null ) );
+    assertEquals ( "default", copied.get ( b, "default" ) );
+    assertEquals ( "default", copied.get ( c, "default" ) );
+
+    assertEquals (
+      1,
+      copied.size ()
+    );
+
+  }
+
+  @Test
+  void primitives () {
+
+    final var names =
+      Names.create ();
+
+    final var l = names.name ( "long" );
+    final var i = names.name ( "integer" );
+    final var d = names.name ( "double" );
+    final var f = names.name ( "float" );
+    final var b = names.name ( "boolean" );
+    final var s = names.name ( "string" );
+    final var o = names.name ( "other" );
+    final var m = names.name ( "missing" );
+
+    final var other =
+      new Object ();
+
+    final var environment =
+      SnapshotEnvironment.builder ()
+        .put ( l, Long.MIN_VALUE )
+        .put ( i, -7 )
+        .put ( d, -0.0D )
+        .put ( f, Float.NaN )
+        .put ( b, true )
+        .put ( s, "42" )
+        .put ( o, other )
+        .build ();
+
+    // a stored primitive reads back unboxed through its own getter, and boxed through get
+
+    assertEquals ( Long.MIN_VALUE, environment.getLong ( l, 0L ) );
+    assertEquals ( -7, environment.getInteger ( i, 0 ) );
+    assertEquals ( Double.doubleToRawLongBits ( -0.0D ), Double.doubleToRawLongBits ( environment.getDouble ( d, 0.0D ) ) );
+    assertTrue ( Float.isNaN ( environment.getFloat ( f, 0.0F ) ) );
+    assertTrue ( environment.getBoolean ( b, false ) );
+
+    assertEquals ( Long.MIN_VALUE, environment.get ( l, null ) );
+    assertEquals ( -7, environment.get ( i, null ) );
+    assertEquals ( -0.0D, environment.get ( d, null ) );
+    assertEquals ( Float.NaN, environment.get ( f, null ) );
+    assertEquals ( Boolean.TRUE, environment.get ( b, null ) );
+    assertSame ( other, environment.get ( o, null ) );
+
+    // a string is parsed by each of the getters
+
+    assertEquals ( 42L, environment.getLong ( s, 0L ) );
+    assertEquals ( 42, environment.getInteger ( s, 0 ) );
+    assertEquals ( 42.0D, environment.getDouble ( s, 0.0D ) );
+    assertEquals ( 42.0F, environment.getFloat ( s, 0.0F ) );
+    assertFalse ( environment.getBoolean ( s, true ) );
+
+    // a miss, or a value of another kind, returns the default
+
+    for ( final var name : List.of ( m, o ) ) {
+
+      assertEquals ( 5L, environment.getLong ( name, 5L ) );
+      assertEquals ( 5, environment.getInteger ( name, 5 ) );
+      assertEquals ( 5.0D, environment.getDouble ( name, 5.0D ) );
+      assertEquals ( 5.0F, environment.getFloat ( name, 5.0F ) );
+      assertTrue ( environment.getBoolean ( name, true ) );
+
+    }
+
+    assertEquals ( 5L, environment.getLong ( i, 5L ) );
+    assertEquals ( 5, environment.getInteger ( l, 5 ) );
+    assertEquals ( 5.0D, environment.getDouble ( f, 5.0D ) );
+    assertEquals ( 5.0F, environment.getFloat ( d, 5.0F ) );
+    assertFalse ( environment.getBoolean ( l, false ) );
+
+    assertEquals (
+      "default",
+      environment.get ( m, "default" )
+    );
+
+  }
+
+
+  // a name that is not a node, placed by its identity hash
+
+  static final class Foreign
+    implements Name {
+
+    private final String value;
+
+    Foreign (
+      final String value
+    ) {
+
+      this.value =
+        value;
+
+    }
+
+
+    @Override
+    public String value () {
+
+      return
+        value;
+
+    }
+
+
+    @Override
+    public Optional< Name > enclosure () {
+
+      return
+        Optional.empty ();
+
+    }
+
+
+    @Override
+    public Name name (
+      final String path
+    ) {
+
+      throw new UnsupportedOperationException ();
+
+    }
+
+
+    @Override
+    public String toString () {
+
+      return
+        value;
+
+    }
+
+  }
+
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright © 2022 JINSPIRED B.V.
+ */
+
+package io.humainary.substrates.sdk;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The test class for the {@link Suppliers} caching suppliers.
+ *
+ * @author wlouth
+ * @since 1.0
+ */
+
+final class SuppliersTest {
+
+  private static final int      THREADS = 8;
+  private static final Duration TTL     = Duration.ofMillis ( 20L );
+
+  private static void await (
+    final BooleanSupplier condition
+  ) throws InterruptedException {
+
+    final var deadline =
+      System.nanoTime () + 10_000_000_000L;
+
+    while ( !condition.getAsBoolean () && System.nanoTime () < deadline )
+      Thread.sleep ( 1L );
+
+    assertTrue (
+      condition.getAsBoolean ()
+    );
+
+  }
+
+  private static void race (
+    final Supplier< Integer > supplier
+  ) throws Exception {
+
+    final var barrier =
+      new CyclicBarrier (
+        THREADS
+      );
+
+    final List< Callable< Integer > > tasks =
+      new ArrayList<> ();
+
+    for ( var t = 0; t < THREADS; t++ ) {
+
+      tasks.add (
+        () -> {
+
+          barrier.await ();
+
+          return
+            supplier.get ();
+
+        }
+      );
+
+    }
+
+    final var executor =
+      Executors.newFixedThreadPool (
+        THREADS
+      );
+
+    try {
+
+      final var values =
+        new HashSet< Integer > ();
+
+      for ( final Future< Integer > future : executor.invokeAll ( tasks ) )
+        values.add ( future.get () );
+
+      assertEquals (
+        1,
+        values.size ()
+      );
+
+    } finally {
+
+      executor.shutdown ();
+
+    }
+
+  }
+
+  @Test
+  void once ()
+  throws Exception {
+
+    final var calls =
+      new AtomicInteger ();
+
+    // racing first readers wait for the one call rather than making their own
+
+    final var supplier =
+      Suppliers.once (
+        () -> {
+
+          try {
+
+            Thread.sleep (
+              20L
+            );
+
+          } catch (
+            final InterruptedException error
+          ) {
+
+            Thread.currentThread ().interrupt ();
+
+          }
+
+          return
+            calls.incrementAndGet ();
+
+        }
+      );
+
+    race (
+      supplier
+    );
+
+    assertEquals (
+      1,
+      calls.get ()
+    );
+
+    assertEquals (
+      1,
+      supplier.get ().intValue ()
+    );
+
+    // a null value is cached like any other
+
+    final var nulls =
+      new AtomicInteger ();
+
+    final var empty =
+      Suppliers.once (
+        () -> {
+
+          nulls.incrementAndGet ();
+
+          return
+            null;
+
+        }
+      );
+
+    assertNull ( empty.get () );
+    assertNull ( empty.get () );
+
+    assertEquals (
+      1,
+      nulls.get ()
+    );
+
+  }
+
+  @Test
+  void first ()
+  throws Exception {
+
+    final var calls =
+      new AtomicInteger ();
+
+    final var supplier =
+      Suppliers.refreshing (
+        () -> {
+
+          try {
+
+            Thread.sleep (
+              20L
+            );
+
+          } catch (
+            final InterruptedException error
+          ) {
+
+            Thread.currentThread ().interrupt ();
+
+          }
+
+          return
+            calls.incrementAndGet ();
+
+        },
+        Duration.ofHours ( 1L )
+      );
+
+    race (
+      supplier
+    );
+
+    assertEquals (
+      1,
+      calls.get ()
+    );
+
+  }
+
+  @Test
+  void stale ()
+  throws Exception {
+
+    final var calls =
+      new AtomicInteger ();
+
+    final var release =
+      new CountDownLatch (
+        1
+      );
+
+    // the refresh blocks until released, so that it stays pending
+
+    final var supplier =
+      Suppliers.refreshing (
+        () -> {
+
+          if ( calls.incrementAndGet () == 2 ) {
+
+            try {
+
+              release.await (
+                10L,
+                SECONDS
+              );
+
+            } catch (
+              final InterruptedException error
+            ) {
+
+              Thread.currentThread ().interrupt ();
+
+            }
+
+          }
+
+          return
+            calls.get ();
+
+        },
+        TTL
+      );
+
+    assertEquals (
+      1,
+      supplier.get ().intValue ()
+    );
+
+    Thread.sleep (
+      TTL.toMillis () * 2
+    );
+
+    // the expired value is served while its refresh is pending,
+    // and only the reader that claimed the refresh submitted it
+
+    for ( var i = 0; i < 100; i++ )
+      assertEquals ( 1, supplier.get ().intValue () );
+
+    await (
+      () -> calls.get () == 2
+    );
+
+    for ( var i = 0; i < 100; i++ )
+      assertEquals ( 1, supplier.get ().intValue () );
+
+    assertEquals (
+      2,
+      calls.get ()
+    );
+
+    release.countDown ();
+
+    await (
+      () -> supplier.get () == 2
+    );
+
+    // the flag was reset, so the refreshed value expires and is refreshed in turn
+
+    await (
+      () -> supplier.get () == 3
+    );
+
+  }
+
+  @Test
+  void failure ()
+  throws Exception {
+
+    final var calls =
+      new AtomicInteger ();
+
+    final var supplier =
+      Suppliers.refreshing (
+        () -> {
+
+          final var call =
+            calls.incrementAndGet ();
+
+          if ( call == 2 || call == 3 )
+            throw new IllegalStateException ( Integer.toString ( call ) );
+
+          return
+            call;
+
+        },
+        TTL
+      );
+
+    assertEquals (
+      1,
+      supplier.get ().intValue ()
+    );
+
+    // failing refreshes keep the previous value, and reset the flag
+    // so that a later refresh is tried and eventually succeeds
+
+    await (
+      () -> {
+
+        final int value =
+          supplier.get ();
+
+        assertTrue (
+          value == 1 || value == 4,
+          Integer.toString ( value )
+        );
+
+        return
+          value == 4;
+
+      }
+    );
+
+    assertEquals (
+      4,
+      calls.get ()
+    );
+
+  }
+
+  @Test
+  void arguments () {
+
+    assertThrows (
+      NullPointerException.class,
+      () -> Suppliers.once ( null )
+    );
+
+    assertThrows (
+      NullPointerException.class,
+      () -> Suppliers.refreshing ( null, TTL )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> Suppliers.refreshing ( () -> 1, Duration.ZERO )
+    );
+
+    assertThrows (
+      IllegalArgumentException.class,
+      () -> Suppliers.refreshing ( () -> 1, Duration.ofMillis ( -1L ) )
+    );
+
+  }
+
+}
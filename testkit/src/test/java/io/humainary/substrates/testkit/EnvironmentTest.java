@@ -6,10 +6,19 @@ package io.humainary.substrates.testkit;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static io.humainary.substrates.Substrates.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * The test class for the {@link Environment} interface.
@@ -24,6 +33,11 @@ final class EnvironmentTest {
   private static final Name  FLOAT_ALT_PATH = name ( "float.2" );
   private static final float FLOAT_VALUE    = 1.0F;
   private static final float FLOAT_DEFAULT  = 2.0F;
+  private static final Name  COMPACT_A      = name ( "compact.a" );
+  private static final Name  COMPACT_B      = name ( "compact.b" );
+  private static final Name  COMPACT_C      = name ( "compact.c" );
+  private static final Name  COMPACT_D      = name ( "compact.d" );
+  private static final Name  COMPACT_NONE   = name ( "compact.none" );
 
   private static void get_float (
     final Environment environment
@@ -48,6 +62,36 @@ final class EnvironmentTest {
   }
 
 
+  // compacts the chain and checks that each name resolves as it did
+
+  private static Environment compact (
+    final Environment chain
+  ) {
+
+    final var compacted =
+      chain.compact ();
+
+    for ( final var name : List.of ( COMPACT_A, COMPACT_B, COMPACT_C, COMPACT_D, COMPACT_NONE ) ) {
+
+      assertEquals (
+        chain.get ( name, FLOAT_DEFAULT ),
+        compacted.get ( name, FLOAT_DEFAULT ),
+        name.toString ()
+      );
+
+    }
+
+    assertSame (
+      compacted,
+      compacted.compact ()
+    );
+
+    return
+      compacted;
+
+  }
+
+
   @Test
   void environment_function () {
 
@@ -129,4 +173,443 @@ final class EnvironmentTest {
 
   }
 
+  @Test
+  void environment_map () {
+
+    get_float (
+      environment (
+        Map.of (
+          FLOAT_PATH,
+          FLOAT_VALUE
+        )
+      )
+    );
+
+  }
+
+  @Test
+  void environment_compact () {
+
+    // the outermost override of a name wins
+
+    final var bindings =
+      compact (
+        Environment.EMPTY
+          .override ( COMPACT_A, "a1" )
+          .override ( COMPACT_B, "b1" )
+          .override ( COMPACT_A, "a2" )
+      );
+
+    assertEquals ( "a2", bindings.get ( COMPACT_A, null ) );
+    assertEquals ( "b1", bindings.get ( COMPACT_B, null ) );
+    assertEquals ( "none", bindings.get ( COMPACT_NONE, "none" ) );
+
+    // a name the primary of an overlay has no value for, or
+    // overrides with null, falls through to the overlaid chain
+
+    final var primary =
+      Environment.EMPTY
+        .override ( COMPACT_A, "primary" )
+        .override ( COMPACT_A, (Object) null )
+        .override ( COMPACT_B, "primary" );
+
+    final var overlay =
+      compact (
+        Environment.EMPTY
+          .override ( COMPACT_A, "a" )
+          .override ( COMPACT_B, "b" )
+          .override ( COMPACT_C, "c" )
+          .override ( primary )
+      );
+
+    assertEquals ( "a", overlay.get ( COMPACT_A, null ) );
+    assertEquals ( "primary", overlay.get ( COMPACT_B, null ) );
+    assertEquals ( "c", overlay.get ( COMPACT_C, null ) );
+
+    // flattening stops at the first environment that is not
+    // an override of a value, which is looked up for the rest
+
+    final var tail =
+      environment (
+        Map.of (
+          COMPACT_C,
+          "tail",
+          COMPACT_D,
+          "tail"
+        )
+      );
+
+    assertSame (
+      tail,
+      tail.compact ()
+    );
+
+    final var tailed =
+      compact (
+        tail
+          .override ( COMPACT_D, () -> "supplied" )
+          .override ( COMPACT_A, "a" )
+          .override ( COMPACT_C, "c" )
+      );
+
+    assertEquals ( "a", tailed.get ( COMPACT_A, null ) );
+    assertEquals ( "c", tailed.get ( COMPACT_C, null ) );
+    assertEquals ( "supplied", tailed.get ( COMPACT_D, null ) );
+    assertEquals ( "none", tailed.get ( COMPACT_NONE, "none" ) );
+
+    // an overlay whose primary cannot be flattened is itself the tail
+
+    compact (
+      Environment.EMPTY
+        .override ( COMPACT_A, "a" )
+        .override ( tail )
+        .override ( COMPACT_B, "b" )
+    );
+
+  }
+
+  @Test
+  void environment_memorize () {
+
+    final var calls =
+      new AtomicInteger ();
+
+    final var environment =
+      environment (
+        lookup (
+          name -> {
+            calls.incrementAndGet ();
+            return name == FLOAT_PATH ? FLOAT_VALUE : null;
+          }
+        )
+      ).memorize ();
+
+    get_float (
+      environment
+    );
+
+    get_float (
+      environment
+    );
+
+    assertEquals (
+      2,
+      calls.get ()
+    );
+
+  }
+
+  @Test
+  void environment_memorize_derived () {
+
+    // environments derived from a changing one report its version and
+    // changes, so that a memo of them is invalidated, whether derived by
+    // an override with a supplier, a remap, a filter or from a lookup
+
+    final List< Function< Environment, Environment > > derivations =
+      List.of (
+        source -> source.override ( FLOAT_ALT_PATH, () -> FLOAT_DEFAULT ),
+        source -> source.remap ( name -> name ),
+        source -> source.filter ( name -> true ),
+        source -> environment ( source )
+      );
+
+    for ( final var derivation : derivations ) {
+
+      final var source =
+        new Source ();
+
+      final var environment =
+        derivation
+          .apply ( source )
+          .memorize ();
+
+      assertEquals (
+        FLOAT_DEFAULT,
+        environment.getFloat (
+          FLOAT_PATH,
+          FLOAT_DEFAULT
+        )
+      );
+
+      source.put (
+        FLOAT_PATH,
+        FLOAT_VALUE
+      );
+
+      assertEquals (
+        1L,
+        environment.version ()
+      );
+
+      get_float (
+        environment
+      );
+
+    }
+
+  }
+
+  @Test
+  void environment_memorize_reclaimed ()
+  throws InterruptedException {
+
+    final var source =
+      new Source ();
+
+    for ( var i = 0; i < 1_000; i++ ) {
+
+      source.memorize ().getFloat (
+        FLOAT_PATH,
+        FLOAT_DEFAULT
+      );
+
+    }
+
+    assertEquals (
+      1_000,
+      source.listeners.size ()
+    );
+
+    // the caches are not held by their listeners, which are
+    // removed once the caches are reclaimed, with no change made
+
+    final var deadline =
+      System.nanoTime () + 10_000_000_000L;
+
+    while ( !source.listeners.isEmpty () && System.nanoTime () < deadline ) {
+
+      System.gc ();
+
+      Thread.sleep (
+        10L
+      );
+
+    }
+
+    assertEquals (
+      0,
+      source.listeners.size ()
+    );
+
+  }
+
+  @Test
+  void environment_typed () {
+
+    final var path =
+      name ( "typed" );
+
+    final var environment =
+      environment (
+        lookup (
+          name ->
+            name == path
+            ? "RUNNABLE"
+            : null
+        )
+      );
+
+    assertEquals (
+      "RUNNABLE",
+      environment.getString (
+        path,
+        "NEW"
+      )
+    );
+
+    assertEquals (
+      Thread.State.RUNNABLE,
+      environment.getEnum (
+        path,
+        Thread.State.class,
+        Thread.State.NEW
+      )
+    );
+
+    assertEquals (
+      name ( "RUNNABLE" ),
+      environment.getName (
+        path,
+        null
+      )
+    );
+
+    assertEquals (
+      Thread.State.NEW,
+      environment.getObject (
+        path,
+        Thread.State.class,
+        Thread.State.NEW
+      )
+    );
+
+  }
+
+  @Test
+  void environment_version () {
+
+    final var values =
+      new HashMap< Name, Object > ();
+
+    final var listeners =
+      new ArrayList< Consumer< ? super Name > > ();
+
+    final var version =
+      new AtomicInteger ();
+
+    final var source =
+      new Environment () {
+
+        @Override
+        public Object get (
+          final Name name,
+          final Object defVal
+        ) {
+
+          return
+            values.getOrDefault (
+              name,
+              defVal
+            );
+
+        }
+
+        @Override
+        public long version () {
+
+          return
+            version.get ();
+
+        }
+
+        @Override
+        public Subscription onChange (
+          final Consumer< ? super Name > listener
+        ) {
+
+          listeners.add (
+            listener
+          );
+
+          return
+            () ->
+              listeners.remove (
+                listener
+              );
+
+        }
+
+      };
+
+    final var environment =
+      source
+        .override ( FLOAT_ALT_PATH, FLOAT_DEFAULT )
+        .memorize ();
+
+    assertEquals (
+      FLOAT_DEFAULT,
+      environment.getFloat (
+        FLOAT_PATH,
+        FLOAT_DEFAULT
+      )
+    );
+
+    values.put (
+      FLOAT_PATH,
+      FLOAT_VALUE
+    );
+
+    version.incrementAndGet ();
+
+    listeners.forEach (
+      listener ->
+        listener.accept (
+          FLOAT_PATH
+        )
+    );
+
+    assertEquals (
+      1L,
+      environment.version ()
+    );
+
+    get_float (
+      environment
+    );
+
+  }
+
+
+  // a mutable environment that notifies its listeners of each change
+
+  static final class Source
+    implements Environment {
+
+    final Map< Name, Object >              values    = new ConcurrentHashMap<> ();
+    final List< Consumer< ? super Name > > listeners = new CopyOnWriteArrayList<> ();
+
+    volatile long version;
+
+    @Override
+    public Object get (
+      final Name name,
+      final Object defVal
+    ) {
+
+      return
+        values.getOrDefault (
+          name,
+          defVal
+        );
+
+    }
+
+
+    void put (
+      final Name name,
+      final Object value
+    ) {
+
+      values.put (
+        name,
+        value
+      );
+
+      version++;
+
+      for ( final var listener : listeners )
+        listener.accept ( name );
+
+    }
+
+
+    @Override
+    public long version () {
+
+      return
+        version;
+
+    }
+
+
+    @Override
+    public Subscription onChange (
+      final Consumer< ? super Name > listener
+    ) {
+
+      listeners.add (
+        listener
+      );
+
+      return
+        () ->
+          listeners.remove (
+            listener
+          );
+
+    }
+
+  }
+
 }
@@ -7,11 +7,19 @@ package io.humainary.substrates.testkit;
 import io.humainary.substrates.Substrates.Name;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Member;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 
 import static io.humainary.substrates.Substrates.name;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterator.SIZED;
+import static java.util.Spliterator.SUBSIZED;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -183,4 +191,248 @@ final class NameTest {
 
   }
 
+  @Test
+  void compare () {
+
+    assertEquals (
+      0,
+      NODE_NAME.compareTo (
+        NODE_NAME
+      )
+    );
+
+    assertTrue (
+      ROOT_NAME.compareTo ( NODE_NAME ) < 0
+    );
+
+    assertTrue (
+      NODE_NAME.compareTo ( ROOT_NAME ) > 0
+    );
+
+    assertTrue (
+      NODE_NAME.compareTo ( ROOT_NAME.name ( "other" ) ) < 0
+    );
+
+    assertTrue (
+      NODE_NAME.name ( "other" ).compareTo ( ROOT_NAME.name ( "other" ) ) < 0
+    );
+
+    assertTrue (
+      name ( "other" ).compareTo ( NODE_NAME ) < 0
+    );
+
+  }
+
+  @Test
+  void enclosures () {
+
+    final var leaf =
+      NODE_NAME.name (
+        "leaf"
+      );
+
+    assertTrue (
+      leaf.within (
+        ROOT_NAME
+      )
+    );
+
+    assertFalse (
+      ROOT_NAME.within (
+        leaf
+      )
+    );
+
+    assertSame (
+      ROOT_NAME,
+      leaf.extremity ()
+    );
+
+    assertSame (
+      NODE_NAME,
+      leaf.commonEnclosure (
+        NODE_NAME.name ( "other" )
+      )
+    );
+
+    assertSame (
+      ROOT_NAME,
+      leaf.commonEnclosure (
+        ROOT_NAME.name ( "other" )
+      )
+    );
+
+    assertNull (
+      leaf.commonEnclosure (
+        name ( "other" )
+      )
+    );
+
+  }
+
+  @Test
+  void stableHash () {
+
+    assertEquals (
+      Name.stableHash ( 0L, ROOT_VALUE ),
+      ROOT_NAME.stableHash ()
+    );
+
+    assertEquals (
+      Name.stableHash ( ROOT_NAME.stableHash (), NODE_VALUE ),
+      NODE_NAME.stableHash ()
+    );
+
+    assertEquals (
+      0xF0B605AD46BA8F7CL,
+      name ( "a.b" ).stableHash ()
+    );
+
+    assertNotEquals (
+      name ( "a.b" ).stableHash (),
+      name ( "b.a" ).stableHash ()
+    );
+
+  }
+
+  @Test
+  void bytes () {
+
+    final var buffer =
+      ByteBuffer.allocate (
+        64
+      );
+
+    NODE_NAME.writeTo (
+      buffer
+    );
+
+    NODE_NAME.writeTo (
+      buffer
+    );
+
+    assertEquals (
+      ByteBuffer.wrap ( ( NODE_PATH + NODE_PATH ).getBytes ( UTF_8 ) ),
+      buffer.flip ()
+    );
+
+    assertTrue (
+      NODE_NAME
+        .toPathBuffer ()
+        .isReadOnly ()
+    );
+
+    assertEquals (
+      ByteBuffer.wrap ( NODE_PATH.getBytes ( UTF_8 ) ),
+      NODE_NAME.toPathBuffer ()
+    );
+
+  }
+
+  @Test
+  void members ()
+  throws ReflectiveOperationException {
+
+    // each member is resolved and cached on its own, so overloads and
+    // fields are not served the name cached for another member, and a
+    // copy of a member reflected again is served the cached name
+
+    for (
+      final var member : List.< Member >of (
+        String.class.getMethod ( "indexOf", int.class ),
+        String.class.getMethod ( "indexOf", String.class ),
+        String.class.getField ( "CASE_INSENSITIVE_ORDER" ),
+        NameTest.class.getDeclaredMethod ( "members" )
+      )
+    ) {
+
+      final var cached =
+        name (
+          member
+        );
+
+      assertEquals (
+        name ( member.getDeclaringClass ().getName () ).name ( member.getName () ),
+        cached
+      );
+
+      assertSame (
+        cached,
+        name ( member )
+      );
+
+    }
+
+    assertSame (
+      name ( String.class.getMethod ( "indexOf", String.class ) ),
+      name ( String.class.getMethod ( "indexOf", String.class ) )
+    );
+
+  }
+
+  @Test
+  void spliterator () {
+
+    final var leaf =
+      name (
+        "a.b.c.d.e"
+      );
+
+    final var spliterator =
+      leaf.spliterator ();
+
+    assertTrue ( spliterator.hasCharacteristics ( SIZED ) );
+    assertTrue ( spliterator.hasCharacteristics ( SUBSIZED ) );
+    assertTrue ( spliterator.hasCharacteristics ( ORDERED ) );
+
+    assertEquals (
+      leaf.depth (),
+      spliterator.getExactSizeIfKnown ()
+    );
+
+    // the prefix split off and the remainder together cover each
+    // extent exactly once, in the order of the iterator
+
+    final var prefix =
+      spliterator.trySplit ();
+
+    assertNotNull (
+      prefix
+    );
+
+    assertEquals (
+      leaf.depth (),
+      prefix.getExactSizeIfKnown () + spliterator.getExactSizeIfKnown ()
+    );
+
+    final var extents =
+      new ArrayList< Name > ();
+
+    prefix.forEachRemaining ( extents::add );
+    spliterator.forEachRemaining ( extents::add );
+
+    final var expected =
+      new ArrayList< Name > ();
+
+    leaf.iterator ().forEachRemaining (
+      expected::add
+    );
+
+    assertEquals (
+      expected,
+      extents
+    );
+
+    assertEquals (
+      List.of ( "e", "d", "c", "b", "a" ),
+      extents.stream ().map ( Name::value ).toList ()
+    );
+
+    assertEquals (
+      1L,
+      ROOT_NAME.spliterator ().getExactSizeIfKnown ()
+    );
+
+  }
+
 }